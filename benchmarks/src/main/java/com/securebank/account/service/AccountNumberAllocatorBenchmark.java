@@ -0,0 +1,64 @@
+package com.securebank.account.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numérotation des comptes (remplace AccountService.generateAccountNumber) : calcul seul de l'IBAN
+ * (format), et attribution complète (nextAccountNumber) sur un seul thread et sous contention.
+ *
+ * La séquence des blocs est simulée en mémoire : le nextval d'un bloc sur 1 000 numéros n'est pas mesuré,
+ * seul le coût propre à l'allocateur (verrou, calcul des clés, String) l'est.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountNumberAllocatorBenchmark {
+
+    private AccountNumberAllocator allocator;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        AtomicLong blocks = new AtomicLong();
+        JdbcTemplate blockSequence = new JdbcTemplate() {
+            @Override
+            public <T> T queryForObject(String sql, Class<T> requiredType) {
+                return requiredType.cast(blocks.incrementAndGet());
+            }
+        };
+        allocator = new AccountNumberAllocator(blockSequence, "12345", "00010");
+    }
+
+    @Benchmark
+    public String format() {
+        return allocator.format(++sequence % 99_999_999_999L);
+    }
+
+    @Benchmark
+    public String nextAccountNumber() {
+        return allocator.nextAccountNumber();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextAccountNumberContended() {
+        return allocator.nextAccountNumber();
+    }
+}
@@ -0,0 +1,95 @@
+package com.securebank.account.service;
+
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers du chemin de virement de TransactionService : mapToDTO (ligne TRANSFER_OUT et ligne TRANSFER
+ * de l'ancien format), références UUID d'une transaction et d'un virement, masquage du numéro de compte.
+ *
+ * Dans le package du service pour appeler ses méthodes package-private, sans Spring ni base.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    private Transaction transferOut;
+    private Transaction legacyTransfer;
+    private String accountNumber;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 15, 10, 30);
+        transferOut = Transaction.builder()
+                .id(1L)
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .amount(new BigDecimal("1250.40"))
+                .currency("EUR")
+                .type(Transaction.TransactionType.TRANSFER_OUT)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .description("Virement vers FR76****0123 - Loyer janvier")
+                .reference("TXN-A1B2C3D4-OUT")
+                .referenceId("TRF-550e8400-e29b")
+                .createdAt(now)
+                .completedAt(now)
+                .build();
+        legacyTransfer = Transaction.builder()
+                .id(2L)
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .amount(new BigDecimal("80.00"))
+                .currency("EUR")
+                .type(Transaction.TransactionType.TRANSFER)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .description("Remboursement")
+                .reference("TXN-E5F6A7B8")
+                .createdAt(now)
+                .completedAt(now)
+                .build();
+        accountNumber = "FR7612345000100000000100044";
+    }
+
+    @Benchmark
+    public TransactionDTO mapToDTO() {
+        return TransactionService.mapToDTO(transferOut, 1L);
+    }
+
+    @Benchmark
+    public TransactionDTO mapToDTOLegacyTransfer() {
+        return TransactionService.mapToDTO(legacyTransfer, 2L);
+    }
+
+    @Benchmark
+    public String generateReference() {
+        return TransactionService.generateReference();
+    }
+
+    @Benchmark
+    public String generateTransferReferenceId() {
+        return TransactionService.generateTransferReferenceId();
+    }
+
+    @Benchmark
+    public String maskAccountNumber() {
+        return TransactionService.maskAccountNumber(accountNumber);
+    }
+}
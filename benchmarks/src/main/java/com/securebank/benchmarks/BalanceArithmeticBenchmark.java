@@ -0,0 +1,88 @@
+package com.securebank.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arithmétique des soldes en BigDecimal telle que pratiquée par les services : contrôle puis débit,
+ * crédit, total d'un lot (transferBatch), solde disponible avec sous-soldes (transferGroup), arrondi
+ * au centime et message de solde insuffisant (String.format).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceArithmeticBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    private BigDecimal balance;
+    private BigDecimal amount;
+    private BigDecimal pendingCredits;
+    private BigDecimal rate;
+    private List<BigDecimal> batchAmounts;
+
+    @Setup
+    public void setUp() {
+        balance = new BigDecimal("15230.75");
+        amount = new BigDecimal("1250.40");
+        pendingCredits = new BigDecimal("842.10");
+        rate = new BigDecimal("0.0325");
+        batchAmounts = new ArrayList<>(BATCH_SIZE);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchAmounts.add(BigDecimal.valueOf(random.nextLong(1, 500_000), 2));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal debitIfSufficient() {
+        return balance.compareTo(amount) >= 0 ? balance.subtract(amount) : balance;
+    }
+
+    @Benchmark
+    public BigDecimal credit() {
+        return balance.add(amount);
+    }
+
+    @Benchmark
+    public BigDecimal batchTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal batchAmount : batchAmounts) {
+            total = total.add(batchAmount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal availableWithStripes() {
+        return balance.add(pendingCredits).subtract(amount);
+    }
+
+    @Benchmark
+    public BigDecimal interestRoundedToCents() {
+        return balance.multiply(rate).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public String insufficientBalanceMessage() {
+        return String.format("Insufficient balance: available=%.2f, required=%.2f", balance, amount);
+    }
+}
@@ -0,0 +1,129 @@
+package com.securebank.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.securebank.account.cache.BinaryCacheSerializer;
+import com.securebank.account.cache.CacheCompression;
+import com.securebank.account.dto.AccountDTO;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Account;
+import com.securebank.account.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialiseur JSON actuel (GenericJackson2JsonRedisSerializer) contre le codec binaire, avec et sans compression.
+ *
+ * Payloads : liste de comptes d'un utilisateur (cache "accounts") et page de 50 transactions.
+ * Lancement : java -jar benchmarks/target/benchmarks.jar CacheSerializer
+ * La taille encodée de chaque couple payload/codec est journalisée au début de sa mesure (ns/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSerializerBenchmark.class);
+
+    @Param({"json", "binary", "binary-lz4", "binary-zstd"})
+    private String codec;
+
+    @Param({"accounts", "transactions"})
+    private String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = serializer(codec);
+        value = payload(payload);
+        encoded = serializer.serialize(value);
+        log.info("Cache payload size: payload={}, codec={}, size={} bytes", payload, codec, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    static RedisSerializer<Object> serializer(String codec) {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        return switch (codec) {
+            case "json" -> json;
+            case "binary" -> new BinaryCacheSerializer(json, CacheCompression.NONE, 512);
+            case "binary-lz4" -> new BinaryCacheSerializer(json, CacheCompression.LZ4, 512);
+            case "binary-zstd" -> new BinaryCacheSerializer(json, CacheCompression.ZSTD, 512);
+            default -> throw new IllegalArgumentException(codec);
+        };
+    }
+
+    static Object payload(String payload) {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 10, 0);
+        List<Object> values = new ArrayList<>();
+        if (payload.equals("accounts")) {
+            for (long i = 1; i <= 4; i++) {
+                values.add(AccountDTO.builder()
+                        .id(i)
+                        .userId(100L)
+                        .accountNumber("FR76300040000312345678901" + i)
+                        .accountType(Account.AccountType.CHECKING)
+                        .balance(new BigDecimal("15234.56"))
+                        .currency("EUR")
+                        .status(Account.AccountStatus.ACTIVE)
+                        .createdAt(createdAt)
+                        .updatedAt(createdAt.plusDays(i))
+                        .build());
+            }
+        } else {
+            for (long i = 1; i <= 50; i++) {
+                values.add(TransactionDTO.builder()
+                        .id(i)
+                        .fromAccountId(1L)
+                        .toAccountId(2L)
+                        .amount(new BigDecimal("-42.10"))
+                        .currency("EUR")
+                        .type(Transaction.TransactionType.TRANSFER_OUT)
+                        .status(Transaction.TransactionStatus.COMPLETED)
+                        .description("Virement loyer")
+                        .reference("TXN-" + i)
+                        .createdAt(createdAt.plusMinutes(i))
+                        .completedAt(createdAt.plusMinutes(i))
+                        .build());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,125 @@
+package com.securebank.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.account.config.JacksonConfig;
+import com.securebank.account.dto.AccountDTO;
+import com.securebank.account.model.Account;
+import com.securebank.contracts.dto.TransactionEvent;
+import com.securebank.payment.dto.PaymentDTO;
+import com.securebank.payment.model.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation et désérialisation Jackson des messages les plus fréquents : TransactionEvent (contrat
+ * Kafka partagé), AccountDTO et PaymentDTO (réponses REST). ObjectMapper de production (JacksonConfig).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private TransactionEvent transactionEvent;
+    private AccountDTO account;
+    private PaymentDTO payment;
+
+    private byte[] transactionEventJson;
+    private byte[] accountJson;
+    private byte[] paymentJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new JacksonConfig().objectMapper();
+        LocalDateTime now = LocalDateTime.of(2025, 1, 15, 10, 30, 12);
+
+        transactionEvent = TransactionEvent.builder()
+                .transactionId(481_516L)
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .userId(100L)
+                .amount(new BigDecimal("1250.40"))
+                .currency("EUR")
+                .type("TRANSFER_OUT")
+                .status("COMPLETED")
+                .description("Virement vers FR76****0123 - Loyer janvier")
+                .timestamp(now)
+                .userEmail("jean.dupont@example.com")
+                .build();
+        account = AccountDTO.builder()
+                .id(1L)
+                .userId(100L)
+                .accountNumber("FR7612345000100000000100044")
+                .accountType(Account.AccountType.CHECKING)
+                .balance(new BigDecimal("15230.75"))
+                .currency("EUR")
+                .status(Account.AccountStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        payment = PaymentDTO.builder()
+                .id(42L)
+                .userId(100L)
+                .accountId(1L)
+                .stripePaymentId("pi_3OfA2bLkdIwHu7ix0a1b2c3d")
+                .amount(new BigDecimal("99.90"))
+                .currency("EUR")
+                .status(Payment.PaymentStatus.COMPLETED)
+                .paymentMethod(Payment.PaymentMethod.CARD)
+                .description("Abonnement premium")
+                .createdAt(now)
+                .completedAt(now)
+                .build();
+
+        transactionEventJson = objectMapper.writeValueAsBytes(transactionEvent);
+        accountJson = objectMapper.writeValueAsBytes(account);
+        paymentJson = objectMapper.writeValueAsBytes(payment);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactionEvent() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactionEvent);
+    }
+
+    @Benchmark
+    public TransactionEvent deserializeTransactionEvent() throws Exception {
+        return objectMapper.readValue(transactionEventJson, TransactionEvent.class);
+    }
+
+    @Benchmark
+    public byte[] serializeAccountDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public AccountDTO deserializeAccountDTO() throws Exception {
+        return objectMapper.readValue(accountJson, AccountDTO.class);
+    }
+
+    @Benchmark
+    public byte[] serializePaymentDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(payment);
+    }
+
+    @Benchmark
+    public PaymentDTO deserializePaymentDTO() throws Exception {
+        return objectMapper.readValue(paymentJson, PaymentDTO.class);
+    }
+}
@@ -0,0 +1,171 @@
+package com.securebank.benchmarks;
+
+import com.securebank.account.dto.AccountDTO;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Account;
+import com.securebank.account.model.Transaction;
+import com.securebank.account.repository.AccountRepository;
+import com.securebank.account.repository.TransactionProjectionRepositoryImpl;
+import com.securebank.account.repository.TransactionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Listings en lecture seule : entités gérées puis mapToDTO (avant) contre projection directe en DTO (après),
+ * sur des pages de 1 000 lignes lues dans un vrai PostgreSQL (Testcontainers, Docker requis).
+ *
+ * Chaque opération est une transaction readOnly complète, comme un appel de service.
+ * Lancement : java -jar benchmarks/target/benchmarks.jar Projection
+ * Comparer gc.alloc.rate.norm (octets alloués par opération) et us/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final long USER_ID = 100L;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate readOnly;
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private long accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+        postgres.start();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.securebank.account.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        accountRepository = repositoryFactory.getRepository(AccountRepository.class);
+        transactionRepository = repositoryFactory.getRepository(TransactionRepository.class,
+                RepositoryFragments.just(new TransactionProjectionRepositoryImpl(jdbcTemplate)));
+
+        // 1 000 comptes pour l'utilisateur, 1 000 transactions sur le premier compte
+        jdbcTemplate.update("INSERT INTO accounts (id, user_id, account_number, account_type, balance, currency, " +
+                "status, created_at, updated_at) SELECT s, ?, 'FR76' || lpad(s::text, 23, '0'), 'CHECKING', 1500.00, " +
+                "'EUR', 'ACTIVE', now(), now() FROM generate_series(1, ?) s", USER_ID, ROWS);
+        accountId = 1L;
+        jdbcTemplate.update("INSERT INTO transactions (id, from_account_id, to_account_id, amount, currency, type, " +
+                "status, description, reference, reference_id, created_at, completed_at) " +
+                "SELECT s, ?, 2, 42.10, 'EUR', 'TRANSFER_OUT', 'COMPLETED', 'Virement loyer', 'TXN-' || s, " +
+                "'TRF-' || s, now() - s * interval '1 minute', now() FROM generate_series(1, ?) s", accountId, ROWS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<AccountDTO> userAccountsEntities() {
+        return readOnly.execute(status -> accountRepository.findByUserId(USER_ID).stream()
+                .map(ProjectionBenchmark::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<AccountDTO> userAccountsProjection() {
+        return readOnly.execute(status -> accountRepository.findAccountDTOsByUserId(USER_ID));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> accountTransactionsEntities() {
+        return readOnly.execute(status -> transactionRepository.findAccountTransactions(accountId).stream()
+                .map(ProjectionBenchmark::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> accountTransactionsProjection() {
+        return readOnly.execute(status -> transactionRepository.findAccountTransactionDTOs(accountId));
+    }
+
+    // Copies des mapToDTO d'AccountService / TransactionService, chemin d'avant la projection
+    private static AccountDTO toDTO(Account account) {
+        return AccountDTO.builder()
+                .id(account.getId())
+                .userId(account.getUserId())
+                .accountNumber(account.getAccountNumber())
+                .accountType(account.getAccountType())
+                .balance(account.getBalance())
+                .currency(account.getCurrency())
+                .status(account.getStatus())
+                .createdAt(account.getCreatedAt())
+                .updatedAt(account.getUpdatedAt())
+                .build();
+    }
+
+    private static TransactionDTO toDTO(Transaction transaction) {
+        return TransactionDTO.builder()
+                .id(transaction.getId())
+                .fromAccountId(transaction.getFromAccountId())
+                .toAccountId(transaction.getToAccountId())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .type(transaction.getType())
+                .status(transaction.getStatus())
+                .description(transaction.getDescription())
+                .reference(transaction.getReference())
+                .createdAt(transaction.getCreatedAt())
+                .completedAt(transaction.getCompletedAt())
+                .build();
+    }
+}
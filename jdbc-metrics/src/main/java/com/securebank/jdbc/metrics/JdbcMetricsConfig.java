@@ -0,0 +1,58 @@
+package com.securebank.jdbc.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Métriques SQL par instruction et par requête HTTP (jdbc.metrics.enabled, actif par défaut).
+ * Chaque pool Hikari est enveloppé : avec une réplique en lecture (account-service), les deux pools
+ * sont instrumentés.
+ *
+ * Auto-configuration partagée par les services (META-INF/spring/...AutoConfiguration.imports) : il
+ * suffit de dépendre du module jdbc-metrics.
+ */
+@AutoConfiguration
+@ConditionalOnClass(HikariDataSource.class)
+@ConditionalOnProperty(name = "jdbc.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcMetricsConfig {
+
+    @Bean
+    public JdbcStatementMetrics jdbcStatementMetrics(MeterRegistry meterRegistry,
+                                                     @Value("${jdbc.metrics.max-shapes:500}") int maxShapes,
+                                                     @Value("${jdbc.metrics.n-plus-one-threshold:10}") int repeatThreshold) {
+        return new JdbcStatementMetrics(meterRegistry, maxShapes, repeatThreshold);
+    }
+
+    @Bean
+    public static BeanPostProcessor jdbcMetricsDataSourcePostProcessor(ObjectProvider<JdbcStatementMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource dataSource
+                        ? new JdbcMetricsDataSource(dataSource, metrics.getObject())
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public WebMvcConfigurer jdbcRequestMetricsConfigurer(JdbcStatementMetrics jdbcStatementMetrics) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new JdbcRequestMetricsInterceptor(jdbcStatementMetrics));
+            }
+        };
+    }
+}
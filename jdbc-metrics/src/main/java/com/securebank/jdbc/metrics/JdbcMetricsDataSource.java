@@ -0,0 +1,196 @@
+package com.securebank.jdbc.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource qui chronomètre chaque instruction SQL et compte les lignes lues, pour {@link JdbcStatementMetrics}.
+ *
+ * Connexions, instructions et ResultSet sont enveloppés par des proxys JDK ; le texte SQL d'une instruction
+ * préparée est résolu en forme une seule fois, à la préparation. Le coût par exécution se limite à deux
+ * lectures d'horloge et à l'enregistrement dans un Timer : assez faible pour rester actif en production,
+ * à la place de show-sql.
+ */
+public class JdbcMetricsDataSource extends DelegatingDataSource {
+
+    private final JdbcStatementMetrics metrics;
+
+    public JdbcMetricsDataSource(DataSource target, JdbcStatementMetrics metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(JdbcMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private abstract static class Handler implements InvocationHandler {
+
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    return ((Class<?>) args[0]).isInstance(proxy) ? proxy : delegate(method, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || (boolean) delegate(method, args);
+                default:
+                    return handle(proxy, method, args);
+            }
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private final class ConnectionHandler extends Handler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                            new StatementHandler(result, metrics.meters((String) args[0])));
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                            new StatementHandler(result, metrics.meters((String) args[0])));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(result, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private final class StatementHandler extends Handler {
+
+        // Forme de l'instruction préparée ; null pour un Statement simple (SQL passé à l'exécution)
+        private final JdbcStatementMetrics.Meters prepared;
+        private JdbcStatementMetrics.Meters last;
+        private ResultSetHandler openResultSet;
+
+        StatementHandler(Object target, JdbcStatementMetrics.Meters prepared) {
+            super(target);
+            this.prepared = prepared;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                JdbcStatementMetrics.Meters meters = args != null && args.length > 0 && args[0] instanceof String sql
+                        ? metrics.meters(sql)
+                        : prepared;
+                if (meters == null) {
+                    return delegate(method, args);
+                }
+                long startedAt = System.nanoTime();
+                Object result = delegate(method, args);
+                metrics.recordExecution(meters, System.nanoTime() - startedAt);
+                last = meters;
+                return result instanceof ResultSet resultSet ? countRows(resultSet) : result;
+            }
+            Object result = delegate(method, args);
+            if ("getResultSet".equals(name) && result instanceof ResultSet resultSet && last != null) {
+                return countRows(resultSet);
+            }
+            if ("close".equals(name)) {
+                recordOpenResultSet();
+            }
+            return result;
+        }
+
+        private ResultSet countRows(ResultSet resultSet) {
+            recordOpenResultSet();
+            openResultSet = new ResultSetHandler(resultSet, last);
+            return proxy(ResultSet.class, openResultSet);
+        }
+
+        // Un ResultSet non fermé explicitement l'est par la fermeture de l'instruction
+        private void recordOpenResultSet() {
+            if (openResultSet != null) {
+                openResultSet.record();
+                openResultSet = null;
+            }
+        }
+    }
+
+    private final class ResultSetHandler extends Handler {
+
+        private final JdbcStatementMetrics.Meters meters;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, JdbcStatementMetrics.Meters meters) {
+            super(target);
+            this.meters = meters;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            switch (method.getName()) {
+                case "next":
+                    if ((boolean) result) {
+                        rows++;
+                    }
+                    break;
+                case "close":
+                    record();
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+
+        void record() {
+            if (!recorded) {
+                recorded = true;
+                metrics.recordRows(meters, rows);
+            }
+        }
+    }
+}
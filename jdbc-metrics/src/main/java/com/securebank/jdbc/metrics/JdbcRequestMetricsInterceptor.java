@@ -0,0 +1,46 @@
+package com.securebank.jdbc.metrics;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Borne le comptage des instructions SQL à la requête HTTP, agrégé par motif de route.
+ *
+ * Une requête asynchrone rend son thread au conteneur sans passer par afterCompletion : le comptage
+ * en est détaché, conservé dans un attribut de la requête, puis repris lors de la redistribution.
+ */
+@RequiredArgsConstructor
+public class JdbcRequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    static final String SUSPENDED_ATTRIBUTE = JdbcRequestMetricsInterceptor.class.getName() + ".SUSPENDED";
+
+    private final JdbcStatementMetrics jdbcStatementMetrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            jdbcStatementMetrics.resumeRequest(request.getAttribute(SUSPENDED_ATTRIBUTE));
+            request.removeAttribute(SUSPENDED_ATTRIBUTE);
+        } else {
+            jdbcStatementMetrics.beginRequest();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        request.setAttribute(SUSPENDED_ATTRIBUTE, jdbcStatementMetrics.suspendRequest());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        jdbcStatementMetrics.endRequest(route != null ? route.toString() : "unknown");
+    }
+}
@@ -0,0 +1,201 @@
+package com.securebank.jdbc.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques des instructions SQL exécutées à travers {@link JdbcMetricsDataSource}.
+ *
+ * Par forme d'instruction (voir {@link StatementShape}) : latence d'exécution (jdbc.statement) et
+ * lignes lues (jdbc.statement.rows). Par requête HTTP : nombre d'instructions exécutées
+ * (jdbc.request.statements) et détection des N+1, c'est-à-dire une même forme de SELECT répétée au
+ * moins n-plus-one-threshold fois dans la requête (jdbc.request.repeated.statements, avertissement
+ * journalisé une fois par couple route/forme).
+ *
+ * Le nombre de formes suivies est borné (max-shapes) ; au-delà, elles sont agrégées sous "other".
+ */
+@Slf4j
+public class JdbcStatementMetrics {
+
+    static final String STATEMENT_METRIC = "jdbc.statement";
+    static final String ROWS_METRIC = "jdbc.statement.rows";
+    static final String REQUEST_METRIC = "jdbc.request.statements";
+    static final String REPEATED_METRIC = "jdbc.request.repeated.statements";
+
+    // Textes SQL bruts mémorisés : au-delà (littéraux non paramétrés), la forme est recalculée à chaque fois
+    private static final int MAX_CACHED_SQL = 10_000;
+
+    private static final ThreadLocal<RequestStatements> REQUEST = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final int maxShapes;
+    private final int repeatThreshold;
+
+    private final ConcurrentMap<String, Meters> bySql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Meters> byShape = new ConcurrentHashMap<>();
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+    private final Meters other;
+
+    public JdbcStatementMetrics(MeterRegistry meterRegistry, int maxShapes, int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.maxShapes = maxShapes;
+        this.repeatThreshold = repeatThreshold;
+        this.other = new Meters(new StatementShape("other", "other", "other", "other"));
+    }
+
+    /**
+     * Compteurs de la forme de {@code sql}, résolus une seule fois par texte SQL
+     */
+    Meters meters(String sql) {
+        Meters meters = bySql.get(sql);
+        if (meters != null) {
+            return meters;
+        }
+        StatementShape shape = StatementShape.of(sql);
+        meters = byShape.get(shape.id());
+        if (meters == null) {
+            meters = byShape.size() < maxShapes ? byShape.computeIfAbsent(shape.id(), id -> register(shape)) : other;
+        }
+        if (bySql.size() < MAX_CACHED_SQL) {
+            bySql.putIfAbsent(sql, meters);
+        }
+        return meters;
+    }
+
+    void recordExecution(Meters meters, long nanos) {
+        meters.latency.record(nanos, TimeUnit.NANOSECONDS);
+        RequestStatements request = REQUEST.get();
+        if (request != null) {
+            request.count(meters);
+        }
+    }
+
+    void recordRows(Meters meters, long rows) {
+        meters.rows.record(rows);
+    }
+
+    /**
+     * Début d'une requête HTTP : les instructions du thread sont comptées jusqu'à {@link #endRequest}
+     */
+    public void beginRequest() {
+        REQUEST.set(new RequestStatements());
+    }
+
+    /**
+     * Traitement asynchrone démarré : le comptage est détaché du thread, qui retourne au conteneur
+     *
+     * @return comptage en cours, à repasser à {@link #resumeRequest} sur le thread de la redistribution
+     */
+    public Object suspendRequest() {
+        RequestStatements request = REQUEST.get();
+        REQUEST.remove();
+        return request;
+    }
+
+    /**
+     * Redistribution asynchrone : reprend le comptage suspendu (nouveau comptage s'il n'y en a pas)
+     */
+    public void resumeRequest(Object suspended) {
+        REQUEST.set(suspended instanceof RequestStatements request ? request : new RequestStatements());
+    }
+
+    /**
+     * Fin d'une requête HTTP
+     *
+     * @param route motif de la route (ex. /api/accounts/{id}), "unknown" si aucun contrôleur n'a répondu
+     */
+    public void endRequest(String route) {
+        RequestStatements request = REQUEST.get();
+        REQUEST.remove();
+        if (request == null) {
+            return;
+        }
+
+        DistributionSummary.builder(REQUEST_METRIC)
+                .description("SQL statements executed per HTTP request")
+                .baseUnit("statements")
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(request.total);
+
+        for (Map.Entry<Meters, int[]> executions : request.queries.entrySet()) {
+            if (executions.getValue()[0] < repeatThreshold) {
+                continue;
+            }
+            StatementShape shape = executions.getKey().shape;
+            Counter.builder(REPEATED_METRIC)
+                    .description("HTTP requests running the same SELECT shape repeatedly (N+1 pattern)")
+                    .tag("uri", route)
+                    .tag("statement", shape.id())
+                    .register(meterRegistry)
+                    .increment();
+            if (reported.add(route + ' ' + shape.id())) {
+                log.warn("Possible N+1 query: {} executed {} times in one request to {}",
+                        shape.sql(), executions.getValue()[0], route);
+            }
+        }
+    }
+
+    private Meters register(StatementShape shape) {
+        log.info("New SQL statement shape {}: {}", shape.id(), shape.sql());
+        return new Meters(shape);
+    }
+
+    /**
+     * Instructions exécutées par la requête HTTP en cours (un batch JDBC compte pour une)
+     */
+    private static final class RequestStatements {
+
+        private int total;
+        private final Map<Meters, int[]> queries = new HashMap<>();
+
+        void count(Meters meters) {
+            total++;
+            if (meters.shape.isQuery()) {
+                queries.computeIfAbsent(meters, m -> new int[1])[0]++;
+            }
+        }
+    }
+
+    final class Meters {
+
+        private final StatementShape shape;
+        private final Timer latency;
+        private final DistributionSummary rows;
+
+        private Meters(StatementShape shape) {
+            this.shape = shape;
+            this.latency = Timer.builder(STATEMENT_METRIC)
+                    .description("SQL statement execution time, by statement shape")
+                    .tag("statement", shape.id())
+                    .tag("operation", shape.operation())
+                    .tag("table", shape.table())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry);
+            this.rows = DistributionSummary.builder(ROWS_METRIC)
+                    .description("Rows read from the result set, by statement shape")
+                    .baseUnit("rows")
+                    .tag("statement", shape.id())
+                    .tag("operation", shape.operation())
+                    .tag("table", shape.table())
+                    .register(meterRegistry);
+        }
+
+        StatementShape shape() {
+            return shape;
+        }
+    }
+}
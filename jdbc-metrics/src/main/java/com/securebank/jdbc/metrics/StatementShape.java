@@ -0,0 +1,48 @@
+package com.securebank.jdbc.metrics;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Forme d'une instruction SQL : le texte sans ses valeurs littérales, les listes IN et VALUES réduites
+ * à un seul élément. Deux exécutions qui ne diffèrent que par leurs paramètres ont la même forme.
+ *
+ * @param id        empreinte courte du texte normalisé, utilisée comme tag des métriques
+ * @param operation premier mot-clé (select, insert, update, delete...)
+ * @param table     première table citée, "none" si introuvable
+ * @param sql       texte normalisé, journalisé une fois pour retrouver l'instruction d'une empreinte
+ */
+public record StatementShape(String id, String operation, String table, String sql) {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\)(?:\\s*,\\s*\\(\\?\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update|join)\\s+([\\w.\"]+)");
+
+    public static StatementShape of(String sql) {
+        String normalized = normalize(sql);
+        int space = normalized.indexOf(' ');
+        String operation = space > 0 ? normalized.substring(0, space) : normalized;
+        Matcher table = TABLE.matcher(normalized);
+        return new StatementShape(
+                String.format("%08x", normalized.hashCode()),
+                operation,
+                table.find() ? table.group(1).replace("\"", "") : "none",
+                normalized);
+    }
+
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?)");
+        return ROW_LIST.matcher(normalized).replaceAll("(?)");
+    }
+
+    public boolean isQuery() {
+        return "select".equals(operation) || "with".equals(operation);
+    }
+}
@@ -0,0 +1,40 @@
+package com.securebank.jdbc.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcMetricsConfigTest {
+
+    // Pool jamais démarré : aucune connexion n'est ouverte par le test
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(JdbcMetricsConfig.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean(DataSource.class, HikariDataSource::new);
+
+    @Test
+    @DisplayName("Should wrap every Hikari pool of the service by default")
+    void testAutoConfigured() {
+        contextRunner.run(context -> {
+            assertInstanceOf(JdbcMetricsDataSource.class, context.getBean(DataSource.class));
+            assertNotNull(context.getBean(JdbcStatementMetrics.class));
+        });
+    }
+
+    @Test
+    @DisplayName("Should leave the pool untouched when jdbc.metrics.enabled is false")
+    void testDisabled() {
+        contextRunner.withPropertyValues("jdbc.metrics.enabled=false").run(context -> {
+            assertInstanceOf(HikariDataSource.class, context.getBean(DataSource.class));
+            assertFalse(context.containsBean("jdbcStatementMetrics"));
+        });
+    }
+}
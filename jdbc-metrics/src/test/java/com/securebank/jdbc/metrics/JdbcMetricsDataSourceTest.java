@@ -0,0 +1,178 @@
+package com.securebank.jdbc.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.DispatcherType;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JdbcMetricsDataSourceTest {
+
+    private static final String ACCOUNT_BY_ID =
+            "select a1_0.id, a1_0.balance from accounts a1_0 where a1_0.id=?";
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcStatementMetrics metrics;
+    private JdbcMetricsDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new JdbcStatementMetrics(meterRegistry, 500, 3);
+        dataSource = new JdbcMetricsDataSource(target, metrics);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+    }
+
+    @Test
+    @DisplayName("Should reduce statements differing only by parameters to one shape")
+    void testStatementShape() {
+        // Given
+        StatementShape inList = StatementShape.of("select t1_0.id from transactions t1_0 where t1_0.from_account_id in (?,?,?)");
+        StatementShape otherInList = StatementShape.of("SELECT t1_0.id FROM transactions t1_0\n WHERE t1_0.from_account_id IN (?, ?)");
+        StatementShape literal = StatementShape.of("select id from accounts where account_number = 'FR76123' limit 10");
+
+        // Then
+        assertEquals(inList.id(), otherInList.id());
+        assertEquals("select t1_0.id from transactions t1_0 where t1_0.from_account_id in (?)", inList.sql());
+        assertEquals("select", inList.operation());
+        assertEquals("transactions", inList.table());
+        assertEquals("select id from accounts where account_number = ? limit ?", literal.sql());
+        assertEquals("(?)", StatementShape.normalize("(?, ?), (?, ?), (?, ?)"));
+    }
+
+    @Test
+    @DisplayName("Should time each execution and count the rows read, by statement shape")
+    void testStatementLatencyAndRows() throws SQLException {
+        // Given
+        try (Connection proxied = dataSource.getConnection();
+             PreparedStatement prepared = proxied.prepareStatement(ACCOUNT_BY_ID)) {
+            prepared.setLong(1, 1L);
+
+            // When
+            try (ResultSet rows = prepared.executeQuery()) {
+                while (rows.next()) {
+                    rows.getLong(1);
+                }
+            }
+        }
+
+        // Then
+        String shape = StatementShape.of(ACCOUNT_BY_ID).id();
+        assertEquals(1, meterRegistry.get(JdbcStatementMetrics.STATEMENT_METRIC)
+                .tag("statement", shape).tag("table", "accounts").timer().count());
+        assertEquals(2.0, meterRegistry.get(JdbcStatementMetrics.ROWS_METRIC)
+                .tag("statement", shape).summary().totalAmount());
+        verify(statement).setLong(1, 1L);
+        verify(connection).close();
+    }
+
+    @Test
+    @DisplayName("Should count statements per HTTP request and flag a SELECT repeated in a loop")
+    void testRepeatedQueryInRequest() throws SQLException {
+        // Given
+        metrics.beginRequest();
+
+        // When - une lecture par compte (N+1)
+        try (Connection proxied = dataSource.getConnection()) {
+            for (long accountId = 1; accountId <= 4; accountId++) {
+                try (PreparedStatement prepared = proxied.prepareStatement(ACCOUNT_BY_ID)) {
+                    prepared.setLong(1, accountId);
+                    prepared.executeQuery().close();
+                }
+            }
+        }
+        metrics.endRequest("/api/transactions/user");
+
+        // Then
+        assertEquals(4.0, meterRegistry.get(JdbcStatementMetrics.REQUEST_METRIC)
+                .tag("uri", "/api/transactions/user").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get(JdbcStatementMetrics.REPEATED_METRIC)
+                .tag("uri", "/api/transactions/user")
+                .tag("statement", StatementShape.of(ACCOUNT_BY_ID).id())
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Should detach the request count from the thread during async handling and resume it on dispatch")
+    void testAsyncRequest() throws SQLException {
+        // Given
+        JdbcRequestMetricsInterceptor interceptor = new JdbcRequestMetricsInterceptor(metrics);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/transactions/export");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/transactions/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When - une instruction avant le traitement asynchrone, une après la redistribution
+        interceptor.preHandle(request, response, null);
+        executeAccountQuery();
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        // Thread rendu au conteneur : une autre requête ne doit rien hériter
+        executeAccountQuery();
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        executeAccountQuery();
+        interceptor.afterCompletion(request, response, null, null);
+
+        // Then
+        assertEquals(2.0, meterRegistry.get(JdbcStatementMetrics.REQUEST_METRIC)
+                .tag("uri", "/api/transactions/export").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should group statement shapes beyond the limit under 'other'")
+    void testShapeLimit() {
+        // Given
+        JdbcStatementMetrics limited = new JdbcStatementMetrics(meterRegistry, 1, 3);
+
+        // When
+        StatementShape first = limited.meters("select id from accounts").shape();
+        StatementShape second = limited.meters("select id from transactions").shape();
+
+        // Then
+        assertEquals("accounts", first.table());
+        assertEquals("other", second.id());
+    }
+
+    private void executeAccountQuery() throws SQLException {
+        try (Connection proxied = dataSource.getConnection();
+             PreparedStatement prepared = proxied.prepareStatement(ACCOUNT_BY_ID)) {
+            prepared.setLong(1, 1L);
+            prepared.executeQuery().close();
+        }
+    }
+}
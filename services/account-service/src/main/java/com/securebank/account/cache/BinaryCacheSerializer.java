@@ -0,0 +1,300 @@
+package com.securebank.account.cache;
+
+import com.securebank.account.dto.AccountDTO;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Account.AccountStatus;
+import com.securebank.account.model.Account.AccountType;
+import com.securebank.account.model.Transaction.TransactionStatus;
+import com.securebank.account.model.Transaction.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sérialiseur binaire des valeurs du cache Redis, pour AccountDTO, TransactionDTO et leurs listes.
+ *
+ * Format : [version du schéma][compression][taille d'origine si compressé][corps]. Le corps écrit
+ * les champs dans un ordre fixe, sans noms ni classes. Une valeur d'une autre version (ou l'ancien
+ * JSON) est traitée comme absente du cache : elle est rechargée puis réécrite au format courant.
+ * Les autres types passent par le sérialiseur JSON de repli.
+ */
+@Slf4j
+public class BinaryCacheSerializer implements RedisSerializer<Object> {
+
+    // À incrémenter à chaque changement des champs sérialisés des DTO
+    static final byte SCHEMA_VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_ACCOUNT = 1;
+    private static final byte TAG_TRANSACTION = 2;
+    private static final byte TAG_LIST = 3;
+    private static final byte TAG_JSON = 4;
+
+    private static final int HEADER_LENGTH = 2;
+    private static final int COMPRESSED_HEADER_LENGTH = HEADER_LENGTH + Integer.BYTES;
+
+    private final RedisSerializer<Object> fallback;
+    private final CacheCompression compression;
+    private final int compressionThreshold;
+
+    public BinaryCacheSerializer(RedisSerializer<Object> fallback, CacheCompression compression, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SCHEMA_VERSION);
+            out.writeByte(CacheCompression.NONE.getId());
+            writeValue(out, value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value", e);
+        }
+
+        byte[] encoded = bytes.toByteArray();
+        int bodyLength = encoded.length - HEADER_LENGTH;
+        if (compression == CacheCompression.NONE || bodyLength < compressionThreshold) {
+            return encoded;
+        }
+
+        byte[] compressed = compression.compress(Arrays.copyOfRange(encoded, HEADER_LENGTH, encoded.length));
+        byte[] result = new byte[COMPRESSED_HEADER_LENGTH + compressed.length];
+        result[0] = SCHEMA_VERSION;
+        result[1] = (byte) compression.getId();
+        result[2] = (byte) (bodyLength >>> 24);
+        result[3] = (byte) (bodyLength >>> 16);
+        result[4] = (byte) (bodyLength >>> 8);
+        result[5] = (byte) bodyLength;
+        System.arraycopy(compressed, 0, result, COMPRESSED_HEADER_LENGTH, compressed.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < HEADER_LENGTH) {
+            return null;
+        }
+        if (bytes[0] != SCHEMA_VERSION) {
+            log.debug("Ignoring cache value with schema version {}", bytes[0]);
+            return null;
+        }
+
+        CacheCompression valueCompression = CacheCompression.fromId(bytes[1]);
+        byte[] body;
+        int offset;
+        if (valueCompression == CacheCompression.NONE) {
+            body = bytes;
+            offset = HEADER_LENGTH;
+        } else {
+            int bodyLength = ((bytes[2] & 0xFF) << 24) | ((bytes[3] & 0xFF) << 16) | ((bytes[4] & 0xFF) << 8) | (bytes[5] & 0xFF);
+            body = valueCompression.decompress(
+                    Arrays.copyOfRange(bytes, COMPRESSED_HEADER_LENGTH, bytes.length), bodyLength);
+            offset = 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, offset, body.length - offset))) {
+            return readValue(in);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read cache value", e);
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof AccountDTO account) {
+            out.writeByte(TAG_ACCOUNT);
+            writeAccount(out, account);
+        } else if (value instanceof TransactionDTO transaction) {
+            out.writeByte(TAG_TRANSACTION);
+            writeTransaction(out, transaction);
+        } else if (value instanceof List<?> list && isBinaryList(list)) {
+            out.writeByte(TAG_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            byte[] json = fallback.serialize(value);
+            out.writeByte(TAG_JSON);
+            out.writeInt(json.length);
+            out.write(json);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_ACCOUNT:
+                return readAccount(in);
+            case TAG_TRANSACTION:
+                return readTransaction(in);
+            case TAG_LIST:
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case TAG_JSON:
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                return fallback.deserialize(json);
+            default:
+                throw new SerializationException("Unknown cache value tag: " + tag);
+        }
+    }
+
+    private static boolean isBinaryList(List<?> list) {
+        for (Object element : list) {
+            if (element != null && !(element instanceof AccountDTO) && !(element instanceof TransactionDTO)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Schéma v1 : ordre des champs figé ---
+
+    private static void writeAccount(DataOutputStream out, AccountDTO account) throws IOException {
+        writeLong(out, account.getId());
+        writeLong(out, account.getUserId());
+        writeString(out, account.getAccountNumber());
+        writeEnum(out, account.getAccountType());
+        writeDecimal(out, account.getBalance());
+        writeString(out, account.getCurrency());
+        writeEnum(out, account.getStatus());
+        writeDateTime(out, account.getCreatedAt());
+        writeDateTime(out, account.getUpdatedAt());
+    }
+
+    private static AccountDTO readAccount(DataInputStream in) throws IOException {
+        return AccountDTO.builder()
+                .id(readLong(in))
+                .userId(readLong(in))
+                .accountNumber(readString(in))
+                .accountType(readEnum(in, AccountType.class))
+                .balance(readDecimal(in))
+                .currency(readString(in))
+                .status(readEnum(in, AccountStatus.class))
+                .createdAt(readDateTime(in))
+                .updatedAt(readDateTime(in))
+                .build();
+    }
+
+    private static void writeTransaction(DataOutputStream out, TransactionDTO transaction) throws IOException {
+        writeLong(out, transaction.getId());
+        writeLong(out, transaction.getFromAccountId());
+        writeLong(out, transaction.getToAccountId());
+        writeDecimal(out, transaction.getAmount());
+        writeString(out, transaction.getCurrency());
+        writeEnum(out, transaction.getType());
+        writeEnum(out, transaction.getStatus());
+        writeString(out, transaction.getDescription());
+        writeString(out, transaction.getReference());
+        writeDateTime(out, transaction.getCreatedAt());
+        writeDateTime(out, transaction.getCompletedAt());
+    }
+
+    private static TransactionDTO readTransaction(DataInputStream in) throws IOException {
+        return TransactionDTO.builder()
+                .id(readLong(in))
+                .fromAccountId(readLong(in))
+                .toAccountId(readLong(in))
+                .amount(readDecimal(in))
+                .currency(readString(in))
+                .type(readEnum(in, TransactionType.class))
+                .status(readEnum(in, TransactionStatus.class))
+                .description(readString(in))
+                .reference(readString(in))
+                .createdAt(readDateTime(in))
+                .completedAt(readDateTime(in))
+                .build();
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Enums par nom : insensible à un réordonnancement des constantes
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        writeString(out, value != null ? value.name() : null);
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type) throws IOException {
+        String name = readString(in);
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            out.writeByte(value.scale());
+            out.writeByte(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = in.readByte();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+}
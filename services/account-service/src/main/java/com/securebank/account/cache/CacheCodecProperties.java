@@ -0,0 +1,34 @@
+package com.securebank.account.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Format des valeurs Redis par nom de cache (cache.codecs.&lt;nom&gt;).
+ * Les caches non configurés restent en JSON.
+ */
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheCodecProperties {
+
+    private Map<String, Codec> codecs = new HashMap<>();
+
+    @Data
+    public static class Codec {
+
+        private Format format = Format.JSON;
+
+        private CacheCompression compression = CacheCompression.NONE;
+
+        // Taille du corps (octets) à partir de laquelle la compression est appliquée
+        private int compressionThreshold = 512;
+    }
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+}
@@ -0,0 +1,56 @@
+package com.securebank.account.cache;
+
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Compression optionnelle des valeurs binaires du cache.
+ * L'identifiant est écrit dans l'en-tête de chaque valeur : ne jamais renuméroter.
+ */
+public enum CacheCompression {
+
+    NONE(0),
+    LZ4(1),
+    ZSTD(2);
+
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+    private static final int ZSTD_LEVEL = 3;
+
+    private final int id;
+
+    CacheCompression(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static CacheCompression fromId(int id) {
+        for (CacheCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Unknown cache compression: " + id);
+    }
+
+    byte[] compress(byte[] data) {
+        return switch (this) {
+            case NONE -> data;
+            case LZ4 -> LZ4_COMPRESSOR.compress(data);
+            case ZSTD -> Zstd.compress(data, ZSTD_LEVEL);
+        };
+    }
+
+    byte[] decompress(byte[] data, int originalLength) {
+        return switch (this) {
+            case NONE -> data;
+            case LZ4 -> LZ4_DECOMPRESSOR.decompress(data, originalLength);
+            case ZSTD -> Zstd.decompress(data, originalLength);
+        };
+    }
+}
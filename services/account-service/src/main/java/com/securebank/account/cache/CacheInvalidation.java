@@ -0,0 +1,41 @@
+package com.securebank.account.cache;
+
+/**
+ * Message d'invalidation L1 diffusé sur Redis pub/sub.
+ * Format texte : origine|horodatage|cache|clé, clé vide pour un clear du cache entier.
+ *
+ * @param origin       identifiant de l'instance émettrice (ignorée à la réception par elle-même)
+ * @param sentAtMillis heure d'émission (epoch ms), après l'éviction de L2 par l'émetteur
+ * @param cacheName    nom du cache
+ * @param key          clé normalisée, null pour vider tout le cache
+ */
+public record CacheInvalidation(String origin, long sentAtMillis, String cacheName, String key) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        return origin + SEPARATOR + sentAtMillis + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : "");
+    }
+
+    public static CacheInvalidation decode(String message) {
+        int first = message.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+        int third = second < 0 ? -1 : message.indexOf(SEPARATOR, second + 1);
+        if (third < 0) {
+            throw new IllegalArgumentException("Malformed cache invalidation message: " + message);
+        }
+        long sentAtMillis;
+        try {
+            sentAtMillis = Long.parseLong(message.substring(first + 1, second));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cache invalidation message: " + message, e);
+        }
+        String key = message.substring(third + 1);
+        return new CacheInvalidation(message.substring(0, first), sentAtMillis,
+                message.substring(second + 1, third), key.isEmpty() ? null : key);
+    }
+
+    public boolean isClear() {
+        return key == null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.securebank.account.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Diffuse les invalidations L1 aux autres instances via Redis pub/sub
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId;
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel, String instanceId) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.instanceId = instanceId;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(new CacheInvalidation(instanceId, System.currentTimeMillis(), cacheName, key));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(new CacheInvalidation(instanceId, System.currentTimeMillis(), cacheName, null));
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private void publish(CacheInvalidation invalidation) {
+        try {
+            redisTemplate.convertAndSend(channel, invalidation.encode());
+        } catch (RuntimeException e) {
+            // Les autres instances gardent au pire leur L1 jusqu'à son expiration (TTL court)
+            log.warn("Failed to publish cache invalidation: cache={}, key={}",
+                    invalidation.cacheName(), invalidation.key(), e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.securebank.account.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Rafraîchissement anticipé probabiliste (XFetch) des entrées chargées par cette instance.
+ *
+ * Une entrée est rechargée en tâche de fond dès que now - delta * beta * ln(rand) >= expiration,
+ * delta étant la durée du dernier chargement : plus l'entrée est chère et proche de l'expiration
+ * Redis, plus le rafraîchissement a de chances d'être déclenché avant l'expiration.
+ *
+ * @param remoteTtl TTL des entrées Redis (L2)
+ * @param beta      agressivité du rafraîchissement anticipé, 0 pour le désactiver
+ * @param executor  exécuteur des rechargements en tâche de fond
+ */
+public record EarlyRefreshPolicy(Duration remoteTtl, double beta, Executor executor) {
+
+    public boolean isEnabled() {
+        return beta > 0;
+    }
+}
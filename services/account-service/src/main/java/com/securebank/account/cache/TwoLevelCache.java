@@ -0,0 +1,349 @@
+package com.securebank.account.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache à 2 niveaux : L1 en mémoire (Caffeine, borné en taille et en durée) devant L2 Redis.
+ *
+ * Une lecture servie par L1 évite l'aller-retour Redis et la désérialisation JSON. Les écritures
+ * explicites (put, evict, clear) sont diffusées aux autres instances, qui vident leur L1 pour relire
+ * L2. Les chargements et rafraîchissements ne le sont pas : ils republient l'état de la base, que
+ * toute écriture antérieure a déjà invalidé.
+ * Les clés L1 sont normalisées en String, comme le fait RedisCache pour ses clés.
+ *
+ * Les chargements via get(key, valueLoader) (@Cacheable(sync = true)) sont dédoublonnés par clé :
+ * les requêtes concurrentes sur une même clé absente attendent le chargement en cours (single-flight).
+ * Les entrées chargées ici sont de plus rafraîchies en tâche de fond avant l'expiration Redis
+ * (voir {@link EarlyRefreshPolicy}).
+ *
+ * Une invalidation (evict, clear, ou reçue d'une autre instance) qui survient pendant un chargement de
+ * la même clé annule sa mise en cache : la valeur a pu être lue avant l'écriture qui a déclenché
+ * l'invalidation, et la publier la ferait servir jusqu'à l'expiration. Elle est tout de même rendue
+ * aux requêtes qui l'attendaient. De même, une lecture de L2 ne remplit L1 que si aucune invalidation
+ * de la clé n'est survenue entre-temps (compteur de générations par tranche de clés).
+ *
+ * Un chargement terminé juste avant de recevoir l'invalidation d'une autre instance a pu lire la base
+ * avant l'écriture de l'émetteur et la publier dans L2 après que celui-ci l'a évincée : si le dernier
+ * chargement de la clé par cette instance a commencé avant l'émission du message et s'est terminé
+ * après, aux décalages d'horloge près, L2 est aussi évincé.
+ */
+@Slf4j
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    static final String REQUESTS_METRIC = "cache.tier.requests";
+    static final String COALESCED_METRIC = "cache.loads.coalesced";
+    static final String EARLY_REFRESH_METRIC = "cache.loads.early.refresh";
+
+    // Décalage toléré entre les horloges des instances
+    static final long CLOCK_SKEW_MILLIS = 1_000;
+
+    private static final int GENERATION_STRIPES = 64;
+
+    /**
+     * Dernier chargement publié dans L2 par cette instance : clé d'origine, durée et expiration Redis
+     * de l'entrée en nanoTime, début et fin du chargement en epoch ms
+     */
+    record LoadStats(Object key, long deltaNanos, long expiresAtNanos, long startedAtMillis, long loadedAtMillis) {
+    }
+
+    private final String name;
+    private final Cache<String, ValueWrapper> local;
+    private final org.springframework.cache.Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final EarlyRefreshPolicy earlyRefreshPolicy;
+    private final Cache<String, LoadStats> loadStats;
+    private final ConcurrentMap<String, InFlightLoad> inFlightLoads = new ConcurrentHashMap<>();
+    // Incrémentée avant chaque invalidation de L1 pour les clés de la tranche
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter coalescedLoads;
+    private final Counter earlyRefreshes;
+
+    public TwoLevelCache(String name,
+                         Cache<String, ValueWrapper> local,
+                         org.springframework.cache.Cache remote,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         EarlyRefreshPolicy earlyRefreshPolicy,
+                         Cache<String, LoadStats> loadStats,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.earlyRefreshPolicy = earlyRefreshPolicy;
+        this.loadStats = loadStats;
+        this.localHits = requests(meterRegistry, "l1", "hit");
+        this.localMisses = requests(meterRegistry, "l1", "miss");
+        this.remoteHits = requests(meterRegistry, "l2", "hit");
+        this.remoteMisses = requests(meterRegistry, "l2", "miss");
+        this.coalescedLoads = Counter.builder(COALESCED_METRIC).tag("cache", name).register(meterRegistry);
+        this.earlyRefreshes = Counter.builder(EARLY_REFRESH_METRIC).tag("cache", name).register(meterRegistry);
+        meterRegistry.gauge("cache.tier.size", Tags.of("cache", name, "tier", "l1"),
+                local, Cache::estimatedSize);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+
+        long generation = generations.get(stripe(localKey));
+        value = remote.get(key);
+        if (value != null) {
+            remoteHits.increment();
+            local.put(localKey, value);
+            if (generations.get(stripe(localKey)) != generation) {
+                // Invalidation entre la lecture de L2 et le remplissage de L1 : la valeur a pu être
+                // lue avant l'écriture, elle est rendue à l'appelant mais pas gardée en L1
+                local.invalidate(localKey);
+            }
+        } else {
+            remoteMisses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object cached = value != null ? value.get() : null;
+        if (cached != null && type != null && !type.isInstance(cached)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + cached);
+        }
+        return (T) cached;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            refreshEarlyIfDue(key, valueLoader);
+            return (T) value.get();
+        }
+
+        String localKey = localKey(key);
+        InFlightLoad load = new InFlightLoad();
+        InFlightLoad inFlight = inFlightLoads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            // Un chargement de cette clé est déjà en cours : on attend son résultat
+            coalescedLoads.increment();
+            try {
+                return (T) inFlight.result.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            return (T) load(key, localKey, valueLoader, load);
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, value);
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidateLoad(inFlightLoads.get(localKey(key)));
+        remote.evict(key);
+        invalidateLocal(localKey(key));
+        loadStats.invalidate(localKey(key));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        inFlightLoads.values().forEach(TwoLevelCache::invalidateLoad);
+        remote.clear();
+        invalidateAllLocal();
+        loadStats.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Invalidation reçue d'une autre instance : L2 a déjà été évincé par l'émetteur, sauf si cette
+     * instance y a republié depuis une valeur lue avant son écriture
+     */
+    void evictLocal(String key, long sentAtMillis) {
+        // Attend la fin d'une publication en cours : loadStats est à jour au retour
+        invalidateLoad(inFlightLoads.get(key));
+        evictStaleLoad(key, sentAtMillis);
+        invalidateLocal(key);
+    }
+
+    void clearLocal(long sentAtMillis) {
+        inFlightLoads.values().forEach(TwoLevelCache::invalidateLoad);
+        loadStats.asMap().keySet().forEach(key -> evictStaleLoad(key, sentAtMillis));
+        invalidateAllLocal();
+    }
+
+    // La génération est incrémentée après l'éviction de L2 et avant celle de L1 : un get(Object)
+    // concurrent a lu soit la nouvelle valeur de L2, soit une génération périmée
+    private void invalidateLocal(String localKey) {
+        generations.incrementAndGet(stripe(localKey));
+        local.invalidate(localKey);
+    }
+
+    private void invalidateAllLocal() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        local.invalidateAll();
+    }
+
+    private void evictStaleLoad(String localKey, long sentAtMillis) {
+        LoadStats stats = loadStats.getIfPresent(localKey);
+        if (stats != null
+                && stats.startedAtMillis() <= sentAtMillis + CLOCK_SKEW_MILLIS
+                && stats.loadedAtMillis() >= sentAtMillis - CLOCK_SKEW_MILLIS) {
+            loadStats.invalidate(localKey);
+            remote.evict(stats.key());
+        }
+    }
+
+    /**
+     * Charge la valeur, la publie dans les 2 niveaux sauf invalidation entre-temps, puis libère les
+     * requêtes en attente. L'appelant doit avoir enregistré {@code load} dans inFlightLoads.
+     */
+    private Object load(Object key, String localKey, Callable<?> valueLoader, InFlightLoad load)
+            throws Exception {
+        try {
+            long startedAtMillis = System.currentTimeMillis();
+            long start = System.nanoTime();
+            Object value = valueLoader.call();
+            long loadedAt = System.nanoTime();
+            // Sous le moniteur du chargement : une invalidation passe soit avant (rien n'est publié),
+            // soit après (elle évince la valeur publiée)
+            synchronized (load) {
+                if (!load.invalidated) {
+                    store(key, value);
+                    loadStats.put(localKey, new LoadStats(key, loadedAt - start,
+                            loadedAt + earlyRefreshPolicy.remoteTtl().toNanos(),
+                            startedAtMillis, System.currentTimeMillis()));
+                }
+            }
+            load.result.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(localKey, load);
+        }
+    }
+
+    private void store(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), new SimpleValueWrapper(value));
+    }
+
+    private static void invalidateLoad(InFlightLoad load) {
+        if (load != null) {
+            synchronized (load) {
+                load.invalidated = true;
+            }
+        }
+    }
+
+    // XFetch : recharge en tâche de fond si now - delta * beta * ln(rand) dépasse l'expiration
+    private void refreshEarlyIfDue(Object key, Callable<?> valueLoader) {
+        if (!earlyRefreshPolicy.isEnabled()) {
+            return;
+        }
+        String localKey = localKey(key);
+        LoadStats stats = loadStats.getIfPresent(localKey);
+        if (stats == null) {
+            return;
+        }
+
+        double gap = stats.deltaNanos() * earlyRefreshPolicy.beta() * -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        if (System.nanoTime() + gap < stats.expiresAtNanos()) {
+            return;
+        }
+
+        InFlightLoad refresh = new InFlightLoad();
+        if (inFlightLoads.putIfAbsent(localKey, refresh) != null) {
+            return;
+        }
+        earlyRefreshes.increment();
+        try {
+            earlyRefreshPolicy.executor().execute(() -> {
+                try {
+                    load(key, localKey, valueLoader, refresh);
+                } catch (Exception e) {
+                    // L'entrée actuelle reste servie jusqu'à son expiration
+                    log.warn("Early refresh failed: cache={}, key={}", name, localKey, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightLoads.remove(localKey, refresh);
+            refresh.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Chargement en cours d'une clé, partagé par les requêtes concurrentes
+     */
+    private static final class InFlightLoad {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        // Modifié sous le moniteur de l'instance
+        private boolean invalidated;
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static int stripe(String localKey) {
+        return Math.floorMod(localKey.hashCode(), GENERATION_STRIPES);
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder(REQUESTS_METRIC)
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
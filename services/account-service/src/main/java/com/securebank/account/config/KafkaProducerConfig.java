@@ -31,6 +31,12 @@ public class KafkaProducerConfig {
         
         // 2. Transmettre la propriété de configuration du JsonSerializer
         configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, true);
+
+        // 3. Regrouper les envois du relais outbox en batchs producteur
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
         
         // Crée la fabrique, qui utilisera les classes de sérialiseurs spécifiées ci-dessus.
         // C'est la méthode recommandée pour laisser Spring Kafka gérer la construction.
@@ -1,6 +1,13 @@
 package com.securebank.account.config;
 
+import com.securebank.account.cache.BinaryCacheSerializer;
+import com.securebank.account.cache.CacheCodecProperties;
+import com.securebank.account.cache.CacheInvalidationPublisher;
+import com.securebank.account.cache.EarlyRefreshPolicy;
+import com.securebank.account.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,15 +16,24 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheCodecProperties.class)
 public class RedisConfig {
 
     @Value("${spring.data.redis.host}")
@@ -32,6 +48,18 @@ public class RedisConfig {
     @Value("${cache.ttl:300}")
     private long cacheTtl;
 
+    @Value("${cache.local.max-size:10000}")
+    private long localCacheMaxSize;
+
+    @Value("${cache.local.ttl:30}")
+    private long localCacheTtl;
+
+    @Value("${cache.invalidation-channel:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(redisHost, redisPort);
@@ -41,10 +69,17 @@ public class RedisConfig {
         return new LettuceConnectionFactory(configuration);
     }
 
+    /**
+     * Cache à 2 niveaux : L1 Caffeine par instance devant le RedisCacheManager (L2 partagé).
+     * Les invalidations L1 sont diffusées aux autres instances sur le canal pub/sub.
+     */
     @Bean
-    public RedisCacheManager cacheManager(
+    public TwoLevelCacheManager cacheManager(
             RedisConnectionFactory connectionFactory, 
-            ObjectMapper objectMapper) { // <--- INJECTION DU BEAN ObjectMapper
+            ObjectMapper objectMapper, // <--- INJECTION DU BEAN ObjectMapper
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            CacheCodecProperties codecProperties) {
 
             // Utiliser le GenericJackson2JsonRedisSerializer pour envelopper 
             // l'ObjectMapper configuré.
@@ -59,8 +94,47 @@ public class RedisConfig {
                             )
                     );
 
-            return RedisCacheManager.builder(connectionFactory)
+            // Format binaire (éventuellement compressé) pour les caches configurés dans cache.codecs
+            Map<String, RedisCacheConfiguration> perCacheConfigs = new HashMap<>();
+            codecProperties.getCodecs().forEach((cacheName, codec) -> {
+                if (codec.getFormat() == CacheCodecProperties.Format.BINARY) {
+                    RedisSerializer<Object> binarySerializer = new BinaryCacheSerializer(
+                            jacksonSerializer, codec.getCompression(), codec.getCompressionThreshold());
+                    perCacheConfigs.put(cacheName, config.serializeValuesWith(
+                            RedisSerializationContext.SerializationPair.fromSerializer(binarySerializer)));
+                }
+            });
+
+            RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                     .cacheDefaults(config)
+                    .withInitialCacheConfigurations(perCacheConfigs)
                     .build();
+            redisCacheManager.afterPropertiesSet();
+
+            CacheInvalidationPublisher invalidationPublisher = new CacheInvalidationPublisher(
+                    stringRedisTemplate, invalidationChannel, UUID.randomUUID().toString());
+
+            // Rechargements anticipés en tâche de fond : pool borné, une tâche refusée est simplement ignorée
+            ThreadPoolTaskExecutor refreshExecutor = new ThreadPoolTaskExecutor();
+            refreshExecutor.setCorePoolSize(2);
+            refreshExecutor.setMaxPoolSize(2);
+            refreshExecutor.setQueueCapacity(100);
+            refreshExecutor.setThreadNamePrefix("cache-refresh-");
+            refreshExecutor.setDaemon(true);
+            refreshExecutor.initialize();
+
+            return new TwoLevelCacheManager(redisCacheManager, invalidationPublisher, meterRegistry,
+                    localCacheMaxSize, Duration.ofSeconds(localCacheTtl),
+                    new EarlyRefreshPolicy(Duration.ofSeconds(cacheTtl), earlyRefreshBeta, refreshExecutor));
         }
-}
\ No newline at end of file
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+}
@@ -0,0 +1,31 @@
+package com.securebank.account.config;
+
+import com.securebank.account.limits.TransferLimitProperties;
+import com.securebank.account.limits.TransferLimitService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@EnableConfigurationProperties(TransferLimitProperties.class)
+public class TransferLimitConfig {
+
+    /**
+     * Réception des virements validés par les autres instances (transactions.limits.shared)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "transactions.limits.shared", havingValue = "true")
+    public RedisMessageListenerContainer transferLimitListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TransferLimitService transferLimitService,
+            TransferLimitProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(transferLimitService, new ChannelTopic(properties.getChannel()));
+        return container;
+    }
+}
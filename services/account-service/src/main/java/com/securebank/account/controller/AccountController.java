@@ -5,6 +5,7 @@ import com.securebank.account.dto.AccountDTO;
 import com.securebank.account.dto.TransactionRequest;
 import com.securebank.account.dto.CreateAccountRequest;
 import com.securebank.account.service.AccountService;
+import com.securebank.account.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -24,6 +25,7 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     @Operation(summary = "Create a new account", description = "Create a new bank account for the authenticated user")
@@ -81,10 +83,12 @@ public class AccountController {
     @PostMapping("/{accountId}/deposit")
     public ResponseEntity<AccountDTO> deposit(
             @PathVariable Long accountId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody TransactionRequest request) {
         
         log.info("Dépôt sur le compte ID {}: {} EUR", accountId, request.getAmount());
-        AccountDTO updatedAccount = accountService.deposit(accountId, request.getAmount(), request.getDescription());
+        AccountDTO updatedAccount = idempotencyService.execute("deposit:" + accountId, idempotencyKey, request,
+                AccountDTO.class, () -> accountService.deposit(accountId, request.getAmount(), request.getDescription()));
         return ResponseEntity.ok(updatedAccount);
     }
 }
\ No newline at end of file
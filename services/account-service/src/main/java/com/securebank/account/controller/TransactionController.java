@@ -1,7 +1,14 @@
 package com.securebank.account.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.account.dto.BatchTransferRequest;
+import com.securebank.account.dto.BatchTransferResult;
+import com.securebank.account.dto.CursorPage;
 import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.dto.TransactionExportFormat;
 import com.securebank.account.dto.TransferRequest;
+import com.securebank.account.service.IdempotencyService;
+import com.securebank.account.service.TransactionExportWriter;
 import com.securebank.account.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,11 +18,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -24,16 +37,29 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/transfer")
     @Operation(summary = "Effectuer un virement", description = "Transférer des fonds entre deux comptes. Génère un type TRANSFER_OUT pour l'émetteur.")
     public ResponseEntity<TransactionDTO> transfer(
             @RequestHeader("X-User-Id") Long userId,
+            @Parameter(description = "Clé unique par virement : un renvoi avec la même clé renvoie le virement déjà effectué") @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request) {
-        TransactionDTO transaction = transactionService.transfer(userId, request);
+        TransactionDTO transaction = idempotencyService.execute("transfer:" + userId, idempotencyKey, request,
+                TransactionDTO.class, () -> transactionService.transfer(userId, request));
         return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
     }
 
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Effectuer un lot de virements", description = "Jusqu'à 10000 virements depuis un même compte source : solde contrôlé une fois sur le total, un résultat par virement (COMPLETED ou REJECTED).")
+    public ResponseEntity<BatchTransferResult> transferBatch(
+            @RequestHeader("X-User-Id") Long userId,
+            @Valid @RequestBody BatchTransferRequest request) {
+        BatchTransferResult result = transactionService.transferBatch(userId, request);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping
     @Operation(summary = "Historique global", description = "Récupère toutes les transactions de l'utilisateur avec distinction contextuelle (IN/OUT)")
     public ResponseEntity<List<TransactionDTO>> getUserTransactions(
@@ -42,6 +68,16 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping(params = "limit")
+    @Operation(summary = "Historique global par curseur", description = "Pagination par curseur (keyset) : passer nextCursor dans ?after= pour la page suivante")
+    public ResponseEntity<CursorPage<TransactionDTO>> getUserTransactionsAfter(
+            @RequestHeader("X-User-Id") Long userId,
+            @Parameter(description = "Curseur <createdAt>,<id> renvoyé par la page précédente") @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        CursorPage<TransactionDTO> transactions = transactionService.getUserTransactionsAfter(userId, after, limit);
+        return ResponseEntity.ok(transactions);
+    }
+
     @GetMapping("/paginated")
     @Operation(summary = "Historique global paginé")
     public ResponseEntity<Page<TransactionDTO>> getUserTransactionsPaginated(
@@ -62,6 +98,17 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping(value = "/account/{accountId}", params = "limit")
+    @Operation(summary = "Historique par compte par curseur", description = "Pagination par curseur (keyset) : passer nextCursor dans ?after= pour la page suivante")
+    public ResponseEntity<CursorPage<TransactionDTO>> getAccountTransactionsAfter(
+            @PathVariable Long accountId,
+            @RequestHeader("X-User-Id") Long userId,
+            @Parameter(description = "Curseur <createdAt>,<id> renvoyé par la page précédente") @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        CursorPage<TransactionDTO> transactions = transactionService.getAccountTransactionsAfter(accountId, userId, after, limit);
+        return ResponseEntity.ok(transactions);
+    }
+
     @GetMapping("/account/{accountId}/paginated")
     @Operation(summary = "Historique par compte paginé")
     public ResponseEntity<Page<TransactionDTO>> getAccountTransactionsPaginated(
@@ -73,4 +120,37 @@ public class TransactionController {
         Page<TransactionDTO> transactions = transactionService.getAccountTransactionsPaginated(accountId, userId, pageable);
         return ResponseEntity.ok(transactions);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/account/{accountId}/export")
+    @Operation(summary = "Export de l'historique d'un compte", description = "Export CSV ou NDJSON diffusé en flux, compressé en gzip si le client l'accepte")
+    public ResponseEntity<StreamingResponseBody> exportAccountTransactions(
+            @PathVariable Long accountId,
+            @RequestHeader("X-User-Id") Long userId,
+            @Parameter(description = "csv ou ndjson") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Premier jour inclus (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Dernier jour inclus (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        TransactionExportFormat exportFormat = TransactionExportFormat.fromParameter(format);
+
+        // Contrôles faits avant d'écrire le premier octet : ensuite le statut HTTP ne peut plus changer
+        transactionService.checkAccountAccess(accountId, userId);
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+            try (TransactionExportWriter writer = new TransactionExportWriter(target, exportFormat, objectMapper)) {
+                transactionService.exportAccountTransactions(accountId, from, to, writer);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + accountId + "." + exportFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
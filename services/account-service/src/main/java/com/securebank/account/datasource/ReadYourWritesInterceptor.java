@@ -0,0 +1,41 @@
+package com.securebank.account.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Associe au thread de la requête l'utilisateur de l'en-tête X-User-Id, pour le routage lecture/écriture.
+ *
+ * Une requête asynchrone libère son thread avant afterCompletion : l'utilisateur en est détaché dès
+ * le démarrage du traitement asynchrone, puis réassocié par preHandle lors de la redistribution.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    static final String USER_HEADER = "X-User-Id";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String userId = request.getHeader(USER_HEADER);
+        if (userId != null) {
+            try {
+                ReadYourWritesTracker.bindUser(Long.valueOf(userId));
+            } catch (NumberFormatException e) {
+                // En-tête invalide : rejeté ensuite par le contrôleur, lecture routée sans utilisateur
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadYourWritesTracker.clearUser();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReadYourWritesTracker.clearUser();
+    }
+}
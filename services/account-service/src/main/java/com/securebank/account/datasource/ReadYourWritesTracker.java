@@ -0,0 +1,47 @@
+package com.securebank.account.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Utilisateurs ayant validé une écriture il y a moins de {@code window} : leurs lectures restent sur le
+ * primaire, le temps que la réplique rattrape son retard. L'utilisateur de la requête en cours est porté
+ * par le thread (voir ReadYourWritesInterceptor).
+ */
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public static void bindUser(Long userId) {
+        CURRENT_USER.set(userId);
+    }
+
+    public static void clearUser() {
+        CURRENT_USER.remove();
+    }
+
+    static Long currentUser() {
+        return CURRENT_USER.get();
+    }
+
+    /**
+     * Écriture validée par l'utilisateur, y compris hors du thread de sa requête (ex. group commit)
+     */
+    public void recordWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    boolean wroteRecently(Long userId) {
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+}
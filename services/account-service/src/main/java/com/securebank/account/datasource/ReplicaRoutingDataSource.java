@@ -0,0 +1,78 @@
+package com.securebank.account.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Aiguillage des connexions entre le primaire et la réplique en lecture seule.
+ *
+ * Une transaction @Transactional(readOnly = true) lit sur la réplique, sauf si l'utilisateur de la requête
+ * a validé une écriture dans la fenêtre read-your-writes. Tout le reste (transactions d'écriture, accès
+ * hors transaction, schéma) va au primaire. Doit être placée derrière un LazyConnectionDataSourceProxy :
+ * la connexion n'est alors obtenue qu'à la première requête SQL, quand le caractère lecture seule de la
+ * transaction est connu.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String ROUTING_METRIC = "datasource.routing";
+
+    public enum Pool {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReadYourWritesTracker readYourWrites;
+    private final Counter readOnlyRoutes;
+    private final Counter pinnedRoutes;
+    private final Counter readWriteRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWrites,
+                                    MeterRegistry meterRegistry) {
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(Pool.PRIMARY, primary, Pool.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.readOnlyRoutes = counter(meterRegistry, Pool.REPLICA, "read-only");
+        this.pinnedRoutes = counter(meterRegistry, Pool.PRIMARY, "read-your-writes");
+        this.readWriteRoutes = counter(meterRegistry, Pool.PRIMARY, "read-write");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = ReadYourWritesTracker.currentUser();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (readYourWrites.wroteRecently(userId)) {
+                pinnedRoutes.increment();
+                return Pool.PRIMARY;
+            }
+            readOnlyRoutes.increment();
+            return Pool.REPLICA;
+        }
+
+        readWriteRoutes.increment();
+        if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWrites.recordWrite(userId);
+                }
+            });
+        }
+        return Pool.PRIMARY;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Pool pool, String reason) {
+        return Counter.builder(ROUTING_METRIC)
+                .description("Connections routed to each pool")
+                .tag("pool", pool.name().toLowerCase())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
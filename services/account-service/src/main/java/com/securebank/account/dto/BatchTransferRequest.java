@@ -0,0 +1,49 @@
+package com.securebank.account.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Lot de virements depuis un même compte source (paie, versements groupés)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferRequest {
+
+    public static final int MAX_ITEMS = 10_000;
+
+    @NotNull(message = "From account ID is required")
+    private Long fromAccountId;
+
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = MAX_ITEMS, message = "A batch cannot exceed 10000 transfers")
+    @Valid
+    private List<Item> transfers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+
+        @NotNull(message = "To account number is required")
+        private String toAccountNumber;
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+        @Digits(integer = 13, fraction = 2, message = "Amount format is invalid")
+        private BigDecimal amount;
+
+        @Size(max = 500, message = "Description cannot exceed 500 characters")
+        private String description;
+    }
+}
@@ -0,0 +1,57 @@
+package com.securebank.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Résultat d'un lot de virements : un résultat par élément, dans l'ordre de la requête
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferResult {
+
+    private Long fromAccountId;
+
+    private int completed;
+
+    private int rejected;
+
+    // Somme débitée du compte source (éléments acceptés uniquement)
+    private BigDecimal totalAmount;
+
+    private List<ItemResult> results;
+
+    public enum ItemStatus {
+        COMPLETED,
+        REJECTED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+
+        // Position de l'élément dans la requête
+        private int index;
+
+        private String toAccountNumber;
+
+        private ItemStatus status;
+
+        // Transaction TRANSFER_OUT créée (null si rejeté)
+        private Long transactionId;
+
+        private String reference;
+
+        // Motif du rejet (null si exécuté)
+        private String error;
+    }
+}
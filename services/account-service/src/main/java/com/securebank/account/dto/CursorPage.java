@@ -0,0 +1,22 @@
+package com.securebank.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    // À repasser dans ?after= pour obtenir la page suivante (null sur la dernière page)
+    private String nextCursor;
+
+    private boolean hasNext;
+}
@@ -0,0 +1,42 @@
+package com.securebank.account.dto;
+
+import com.securebank.account.exception.InvalidCursorException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position dans un historique trié par (createdAt DESC, id DESC).
+ * Format texte : {@code <createdAt ISO>,<id>}, ex. {@code 2025-01-10T12:00:00.123456,4521}
+ */
+public record TransactionCursor(LocalDateTime createdAt, Long id) {
+
+    // Curseur de la première page : avant toute transaction possible
+    public static final TransactionCursor FIRST = new TransactionCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    public static TransactionCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        int separator = cursor.lastIndexOf(',');
+        if (separator <= 0) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new TransactionCursor(
+                    LocalDateTime.parse(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static TransactionCursor of(TransactionDTO transaction) {
+        return new TransactionCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    @Override
+    public String toString() {
+        return createdAt + "," + id;
+    }
+}
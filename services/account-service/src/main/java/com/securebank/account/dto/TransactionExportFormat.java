@@ -0,0 +1,31 @@
+package com.securebank.account.dto;
+
+import com.securebank.account.exception.UnsupportedExportFormatException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+@Getter
+@RequiredArgsConstructor
+public enum TransactionExportFormat {
+
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+    NDJSON(new MediaType("application", "x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    /**
+     * Valeur du paramètre ?format=, insensible à la casse
+     */
+    public static TransactionExportFormat fromParameter(String format) {
+        for (TransactionExportFormat candidate : values()) {
+            if (candidate.name().equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        throw new UnsupportedExportFormatException("Unsupported export format: " + format);
+    }
+}
@@ -0,0 +1,67 @@
+package com.securebank.account.limits;
+
+/**
+ * Compteurs glissants des virements émis par un compte : nombre sur une minute, montant (en centimes)
+ * sur 24 heures et sur 30 jours. Environ 1 Ko par compte. Non thread-safe : TransferLimitService
+ * n'y accède que sous le verrou de son entrée de map.
+ */
+final class AccountVelocity {
+
+    static final long MINUTE_MILLIS = 60_000L;
+    static final long HOUR_MILLIS = 3_600_000L;
+    static final long DAY_MILLIS = 86_400_000L;
+    static final int MONTH_DAYS = 30;
+
+    /**
+     * Plafonds résolus d'un type de compte, Long.MAX_VALUE pour « non limité »
+     */
+    record Thresholds(long dailyCents, long monthlyCents, long operationsPerMinute) {
+    }
+
+    enum Window {
+        VELOCITY,
+        DAILY,
+        MONTHLY
+    }
+
+    private final SlidingWindow operations = new SlidingWindow(10_000L, 6);
+    private final SlidingWindow daily = new SlidingWindow(HOUR_MILLIS, 24);
+    private final SlidingWindow monthly = new SlidingWindow(DAY_MILLIS, MONTH_DAYS);
+
+    /**
+     * Enregistre le virement s'il respecte les plafonds
+     *
+     * @return la fenêtre dépassée, ou null si le virement est enregistré
+     */
+    Window tryAcquire(long nowMillis, long cents, int operationCount, Thresholds thresholds) {
+        if (operationCount > 0 && operations.sum(nowMillis) + operationCount > thresholds.operationsPerMinute()) {
+            return Window.VELOCITY;
+        }
+        if (daily.sum(nowMillis) + cents > thresholds.dailyCents()) {
+            return Window.DAILY;
+        }
+        if (monthly.sum(nowMillis) + cents > thresholds.monthlyCents()) {
+            return Window.MONTHLY;
+        }
+        record(nowMillis, cents, operationCount);
+        return null;
+    }
+
+    /**
+     * Ajoute (ou retire, valeurs négatives) un virement à l'instant donné, sans contrôle
+     */
+    void record(long atMillis, long cents, int operationCount) {
+        if (operationCount != 0) {
+            operations.add(atMillis, operationCount);
+        }
+        daily.add(atMillis, cents);
+        monthly.add(atMillis, cents);
+    }
+
+    /**
+     * Plus aucun virement dans la fenêtre la plus longue : l'entrée peut être retirée
+     */
+    boolean isIdle(long nowMillis) {
+        return monthly.sum(nowMillis) == 0 && operations.sum(nowMillis) == 0;
+    }
+}
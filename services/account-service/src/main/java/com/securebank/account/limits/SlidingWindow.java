@@ -0,0 +1,56 @@
+package com.securebank.account.limits;
+
+import java.util.Arrays;
+
+/**
+ * Somme glissante sur {@code buckets} intervalles de {@code bucketMillis}, en anneau de tableaux
+ * primitifs : aucune allocation après construction, évaluation en O(buckets).
+ *
+ * La fenêtre couvre l'intervalle courant, entamé, et les {@code buckets} précédents (anneau de
+ * {@code buckets + 1} cases) : à la granularité près, elle compte un peu plus large que sa durée
+ * nominale, jamais moins. Non thread-safe.
+ */
+final class SlidingWindow {
+
+    private final long bucketMillis;
+    // Numéro absolu (temps / bucketMillis) de l'intervalle occupant chaque case
+    private final long[] epochs;
+    private final long[] sums;
+
+    SlidingWindow(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        // Une case de plus que la durée nominale pour l'intervalle courant, seulement entamé
+        this.epochs = new long[buckets + 1];
+        this.sums = new long[buckets + 1];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Ajoute {@code value} (négatif pour annuler) à l'intervalle contenant {@code atMillis}.
+     * Sans effet si cet intervalle est déjà sorti de l'anneau.
+     */
+    void add(long atMillis, long value) {
+        long epoch = Math.floorDiv(atMillis, bucketMillis);
+        int slot = (int) Math.floorMod(epoch, (long) epochs.length);
+        if (epochs[slot] != epoch) {
+            if (epochs[slot] > epoch) {
+                return;
+            }
+            epochs[slot] = epoch;
+            sums[slot] = 0;
+        }
+        sums[slot] += value;
+    }
+
+    long sum(long nowMillis) {
+        long current = Math.floorDiv(nowMillis, bucketMillis);
+        long oldest = current - epochs.length;
+        long total = 0;
+        for (int slot = 0; slot < epochs.length; slot++) {
+            if (epochs[slot] > oldest && epochs[slot] <= current) {
+                total += sums[slot];
+            }
+        }
+        return total;
+    }
+}
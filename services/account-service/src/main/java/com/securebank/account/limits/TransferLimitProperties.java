@@ -0,0 +1,41 @@
+package com.securebank.account.limits;
+
+import com.securebank.account.model.Account;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Plafonds de virement par type de compte (transactions.limits.types.&lt;TYPE&gt;).
+ * Un type non configuré, ou un plafond absent, n'est pas limité.
+ */
+@Data
+@ConfigurationProperties(prefix = "transactions.limits")
+public class TransferLimitProperties {
+
+    private Map<Account.AccountType, Limits> types = new EnumMap<>(Account.AccountType.class);
+
+    // Diffusion des virements acceptés aux autres instances (Redis pub/sub)
+    private boolean shared = false;
+
+    private String channel = "transfer-velocity";
+
+    @Data
+    public static class Limits {
+
+        // Montant maximal d'un virement
+        private BigDecimal maxAmount;
+
+        // Montant cumulé sur 24 heures glissantes
+        private BigDecimal daily;
+
+        // Montant cumulé sur 30 jours glissants
+        private BigDecimal monthly;
+
+        // Nombre de virements sur une minute glissante
+        private Integer perMinute;
+    }
+}
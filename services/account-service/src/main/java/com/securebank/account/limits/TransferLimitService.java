@@ -0,0 +1,261 @@
+package com.securebank.account.limits;
+
+import com.securebank.account.exception.TransferLimitExceededException;
+import com.securebank.account.model.Account;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Plafonds de virement par type de compte : montant unitaire, montant sur 24 heures et 30 jours
+ * glissants, nombre de virements par minute.
+ *
+ * Les cumuls ne sont pas recalculés en base à chaque virement : chaque compte actif a ses compteurs
+ * glissants en mémoire (AccountVelocity), reconstruits au démarrage à partir des virements des 30 derniers
+ * jours, avant l'ouverture du serveur web : aucune réservation faite entre-temps n'est comptée deux fois.
+ * Comme en direct, un lot compte pour un seul virement (ses lignes partagent un referenceId).
+ * Un virement accepté est réservé immédiatement (les virements concurrents le voient) et retiré
+ * si sa transaction SQL est annulée.
+ *
+ * Avec plusieurs instances, chaque instance ne voit que ses propres virements, sauf si
+ * transactions.limits.shared est activé : les virements validés sont alors diffusés sur Redis pub/sub
+ * et appliqués aux compteurs des autres instances (à la latence de diffusion près).
+ */
+@Service
+@Slf4j
+public class TransferLimitService implements MessageListener, SmartLifecycle {
+
+    static final String REJECTIONS_METRIC = "account.transfer.limit.rejections";
+
+    // Un virement par referenceId (un lot entier, ou un virement seul), daté de sa première ligne
+    private static final String REBUILD_SQL =
+            "SELECT from_account_id, date_trunc('minute', created_at) AS minute, " +
+            "SUM(amount) AS amount, COUNT(*) AS operations FROM (" +
+            "    SELECT from_account_id, MIN(created_at) AS created_at, SUM(amount) AS amount FROM transactions " +
+            "    WHERE type IN ('TRANSFER_OUT', 'TRANSFER') AND status = 'COMPLETED' AND created_at >= ? " +
+            "    GROUP BY from_account_id, COALESCE(reference_id, id::text)" +
+            ") o GROUP BY from_account_id, date_trunc('minute', created_at)";
+
+    // Démarré avant le serveur web (WebServerStartStopLifecycle, phase WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1)
+    private static final int REBUILD_PHASE = 0;
+
+    private static final AccountVelocity.Thresholds UNLIMITED =
+            new AccountVelocity.Thresholds(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final TransferLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Account.AccountType, AccountVelocity.Thresholds> thresholds =
+            new EnumMap<>(Account.AccountType.class);
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<Long, AccountVelocity> velocities = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    // Une seule reconstruction : un redémarrage du contexte compterait deux fois le grand livre
+    private boolean rebuilt;
+
+    public TransferLimitService(JdbcTemplate jdbcTemplate,
+                                ObjectProvider<StringRedisTemplate> redisTemplate,
+                                TransferLimitProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        properties.getTypes().forEach((type, limits) -> thresholds.put(type, new AccountVelocity.Thresholds(
+                limits.getDaily() != null ? toCents(limits.getDaily()) : Long.MAX_VALUE,
+                limits.getMonthly() != null ? toCents(limits.getMonthly()) : Long.MAX_VALUE,
+                limits.getPerMinute() != null ? limits.getPerMinute() : Long.MAX_VALUE)));
+    }
+
+    /**
+     * Contrôle et réserve un virement (ou, pour un lot, une part de virement) du compte source.
+     *
+     * @param operationCount nombre de virements comptés dans la limite par minute (0 pour un élément de lot,
+     *                       le lot entier comptant pour un)
+     * @throws TransferLimitExceededException si un plafond du type de compte serait dépassé
+     */
+    public void reserve(Account account, BigDecimal amount, int operationCount) {
+        TransferLimitProperties.Limits limits = properties.getTypes().get(account.getAccountType());
+        if (limits != null && limits.getMaxAmount() != null && amount.compareTo(limits.getMaxAmount()) > 0) {
+            reject("single", "Transfer amount exceeds maximum limit of " + limits.getMaxAmount().toPlainString() + " EUR");
+        }
+
+        long now = System.currentTimeMillis();
+        long cents = toCents(amount);
+        AccountVelocity.Thresholds accountThresholds = thresholds.getOrDefault(account.getAccountType(), UNLIMITED);
+        AccountVelocity.Window[] exceeded = new AccountVelocity.Window[1];
+        velocities.compute(account.getId(), (id, velocity) -> {
+            AccountVelocity current = velocity != null ? velocity : new AccountVelocity();
+            exceeded[0] = current.tryAcquire(now, cents, operationCount, accountThresholds);
+            return current;
+        });
+
+        if (exceeded[0] != null) {
+            switch (exceeded[0]) {
+                case VELOCITY -> reject("velocity", "Too many transfers: at most " + limits.getPerMinute() + " per minute");
+                case DAILY -> reject("daily", "Daily transfer limit of " + limits.getDaily().toPlainString() + " EUR exceeded");
+                case MONTHLY -> reject("monthly", "Monthly transfer limit of " + limits.getMonthly().toPlainString() + " EUR exceeded");
+            }
+        }
+        track(new VelocityEvent(instanceId, account.getId(), now, cents, operationCount));
+    }
+
+    @Override
+    public void start() {
+        if (!rebuilt) {
+            rebuild();
+            rebuilt = true;
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return REBUILD_PHASE;
+    }
+
+    /**
+     * Reconstruit les compteurs à partir des virements des 30 derniers jours (agrégés par minute)
+     */
+    public void rebuild() {
+        long since = System.currentTimeMillis() - AccountVelocity.MONTH_DAYS * AccountVelocity.DAY_MILLIS;
+        long[] rows = new long[1];
+        jdbcTemplate.query(REBUILD_SQL, rs -> {
+            record(rs.getLong("from_account_id"), rs.getTimestamp("minute").getTime(),
+                    toCents(rs.getBigDecimal("amount")), rs.getInt("operations"));
+            rows[0]++;
+        }, new Timestamp(since));
+        log.info("Transfer limit counters rebuilt: accounts={}, minuteBuckets={}", velocities.size(), rows[0]);
+    }
+
+    /**
+     * Virement validé par une autre instance (transactions.limits.shared)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        VelocityEvent event;
+        try {
+            event = VelocityEvent.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring velocity event: {}", e.getMessage());
+            return;
+        }
+        if (!event.origin().equals(instanceId)) {
+            record(event.accountId(), event.atMillis(), event.cents(), event.operations());
+        }
+    }
+
+    /**
+     * Retire les comptes sans virement depuis 30 jours
+     */
+    @Scheduled(fixedDelayString = "${transactions.limits.eviction-interval-ms:3600000}")
+    public void evictIdleAccounts() {
+        long now = System.currentTimeMillis();
+        for (Long accountId : velocities.keySet()) {
+            velocities.computeIfPresent(accountId, (id, velocity) -> velocity.isIdle(now) ? null : velocity);
+        }
+    }
+
+    private void record(long accountId, long atMillis, long cents, int operationCount) {
+        velocities.compute(accountId, (id, velocity) -> {
+            AccountVelocity current = velocity != null ? velocity : new AccountVelocity();
+            current.record(atMillis, cents, operationCount);
+            return current;
+        });
+    }
+
+    /**
+     * Réservation liée à la transaction en cours : diffusée au commit, retirée à l'annulation.
+     * Une seule synchronisation par transaction, quel que soit le nombre de réservations (lots).
+     */
+    private void track(VelocityEvent reservation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(reservation);
+            return;
+        }
+        PendingReservations pending = (PendingReservations) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingReservations();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.reservations.add(reservation);
+    }
+
+    private void publish(VelocityEvent event) {
+        if (!properties.isShared()) {
+            return;
+        }
+        try {
+            redisTemplate.getObject().convertAndSend(properties.getChannel(), event.encode());
+        } catch (RuntimeException e) {
+            // Les autres instances sous-estiment ce compte jusqu'à leur prochain redémarrage
+            log.warn("Failed to publish velocity event: account={}", event.accountId(), e);
+        }
+    }
+
+    private void reject(String limit, String message) {
+        Counter.builder(REJECTIONS_METRIC)
+                .description("Transfers rejected by a per-account limit")
+                .tag("limit", limit)
+                .register(meterRegistry)
+                .increment();
+        throw new TransferLimitExceededException(message);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.UP).longValueExact();
+    }
+
+    private class PendingReservations implements TransactionSynchronization {
+
+        private final List<VelocityEvent> reservations = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransferLimitService.this);
+            for (VelocityEvent reservation : reservations) {
+                if (status == STATUS_COMMITTED) {
+                    publish(reservation);
+                } else {
+                    record(reservation.accountId(), reservation.atMillis(), -reservation.cents(),
+                            -reservation.operations());
+                }
+            }
+        }
+    }
+}
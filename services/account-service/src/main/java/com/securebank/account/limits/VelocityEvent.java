@@ -0,0 +1,31 @@
+package com.securebank.account.limits;
+
+/**
+ * Virement accepté diffusé aux autres instances sur Redis pub/sub.
+ * Format texte : origine|compte|instant|centimes|opérations.
+ *
+ * @param origin    identifiant de l'instance émettrice (ignorée à la réception par elle-même)
+ * @param accountId compte source
+ * @param atMillis  instant du virement (epoch, millisecondes)
+ */
+public record VelocityEvent(String origin, long accountId, long atMillis, long cents, int operations) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        return origin + SEPARATOR + accountId + SEPARATOR + atMillis + SEPARATOR + cents + SEPARATOR + operations;
+    }
+
+    public static VelocityEvent decode(String message) {
+        String[] parts = message.split("\\|");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Malformed velocity event: " + message);
+        }
+        try {
+            return new VelocityEvent(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]), Integer.parseInt(parts[4]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed velocity event: " + message, e);
+        }
+    }
+}
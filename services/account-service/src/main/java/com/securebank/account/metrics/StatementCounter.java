@@ -0,0 +1,53 @@
+package com.securebank.account.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compte les instructions SQL préparées par Hibernate sur le thread courant.
+ *
+ * Enregistré comme StatementInspector (voir HibernateConfig) : un batch JDBC compte pour une seule
+ * instruction, ce qui correspond au nombre d'allers-retours vers la base.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Ajoute des instructions exécutées hors Hibernate (JdbcTemplate) ; un batch JDBC compte pour une
+     */
+    public void count(int statements) {
+        COUNT.get()[0] += statements;
+    }
+
+    /**
+     * Position courante du compteur, à passer ensuite à {@link #record(String, int)}
+     */
+    public int mark() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * Enregistre le nombre d'instructions exécutées depuis {@code mark} dans la distribution {@code metricName}
+     */
+    public void record(String metricName, int mark) {
+        DistributionSummary.builder(metricName)
+                .description("SQL statements executed per operation")
+                .baseUnit("statements")
+                .register(meterRegistry)
+                .record(mark() - mark);
+    }
+}
@@ -0,0 +1,183 @@
+package com.securebank.account.metrics;
+
+import com.securebank.account.exception.AccountNotFoundException;
+import com.securebank.account.exception.InsufficientBalanceException;
+import com.securebank.account.exception.InvalidTransferException;
+import com.securebank.account.exception.TransferLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Durée de chaque phase d'un virement, par mode et par issue (timer account.transfer.phase).
+ *
+ * Mode single : une mesure par virement unitaire. Modes batch et group : une mesure par transaction SQL,
+ * soit par lot ou par groupe de virements (taille dans account.transfer.group.size) ; un virement rejeté
+ * seul dans un lot ou un groupe n'en change pas l'issue.
+ *
+ * Les durées sont accumulées pendant le virement puis publiées à la fin de la transaction SQL, une fois
+ * l'issue connue : la phase commit est donc mesurée aussi quand le virement rejoint une transaction
+ * ouverte par l'appelant (clé d'idempotence). Une phase non atteinte n'est pas enregistrée ; celle
+ * interrompue par un rejet l'est, avec l'issue du rejet (ex. attente du verrou puis solde insuffisant).
+ */
+@Component
+public class TransferPhaseTimer {
+
+    public static final String METRIC = "account.transfer.phase";
+
+    public enum Mode {
+        SINGLE,
+        BATCH,
+        GROUP
+    }
+
+    public enum Phase {
+        VALIDATION,
+        // Débit conditionnel (UPDATE ... WHERE balance >= montant), attente du verrou de ligne du compte source comprise
+        SOURCE_DEBIT,
+        DESTINATION_LOOKUP,
+        // Lot et group commit : SELECT FOR UPDATE du compte source et des destinataires, par id croissant
+        ACCOUNT_LOCKS,
+        LEDGER_INSERTS,
+        BALANCE_UPDATES,
+        EVENT_PUBLICATION,
+        COMMIT
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        INSUFFICIENT_FUNDS,
+        INVALID,
+        ERROR
+    }
+
+    // Timers enregistrés à la première mesure de chaque combinaison [mode][phase][issue] : chacun porte
+    // un histogramme de percentiles, la plupart des combinaisons ne sont jamais atteintes
+    private final AtomicReferenceArray<Timer> timers =
+            new AtomicReferenceArray<>(Mode.values().length * Phase.values().length * Outcome.values().length);
+    private final MeterRegistry meterRegistry;
+
+    public TransferPhaseTimer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Démarre la mesure d'un virement, d'un lot ou d'un groupe ; la publication est rattachée à la
+     * transaction SQL courante
+     */
+    public Recording start(Mode mode) {
+        Recording recording = new Recording(mode);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(recording);
+        }
+        return recording;
+    }
+
+    static Outcome outcomeOf(RuntimeException e) {
+        if (e instanceof InsufficientBalanceException) {
+            return Outcome.INSUFFICIENT_FUNDS;
+        }
+        if (e instanceof InvalidTransferException
+                || e instanceof AccountNotFoundException
+                || e instanceof TransferLimitExceededException) {
+            return Outcome.INVALID;
+        }
+        return Outcome.ERROR;
+    }
+
+    private Timer timer(Mode mode, Phase phase, Outcome outcome) {
+        int index = (mode.ordinal() * Phase.values().length + phase.ordinal()) * Outcome.values().length
+                + outcome.ordinal();
+        Timer timer = timers.get(index);
+        if (timer == null) {
+            // Enregistrement idempotent : deux threads concurrents obtiennent le même timer
+            timer = Timer.builder(METRIC)
+                    .description("Time spent in each phase of a transfer, batch or transfer group")
+                    .tag("mode", tagValue(mode))
+                    .tag("phase", tagValue(phase))
+                    .tag("outcome", tagValue(outcome))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            timers.set(index, timer);
+        }
+        return timer;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Mesure d'un virement (ou d'un lot, d'un groupe), propre au thread qui l'exécute
+     */
+    public final class Recording implements TransactionSynchronization {
+
+        private final Mode mode;
+        private final long[] nanos = new long[Phase.values().length];
+        private final boolean[] reached = new boolean[Phase.values().length];
+        private Phase current;
+        private long startedAt;
+        private Outcome outcome;
+
+        private Recording(Mode mode) {
+            this.mode = mode;
+        }
+
+        /**
+         * Termine la phase en cours et démarre {@code phase} (durées cumulées si elle se répète)
+         */
+        public void begin(Phase phase) {
+            end();
+            current = phase;
+            startedAt = System.nanoTime();
+        }
+
+        /**
+         * Termine la phase en cours ; le temps jusqu'à la phase suivante n'est attribué à aucune
+         */
+        public void end() {
+            if (current != null) {
+                nanos[current.ordinal()] += System.nanoTime() - startedAt;
+                reached[current.ordinal()] = true;
+                current = null;
+            }
+        }
+
+        /**
+         * Le virement est rejeté ou a échoué : la phase en cours est close, l'issue déduite de l'exception
+         */
+        public void failed(RuntimeException e) {
+            end();
+            outcome = outcomeOf(e);
+        }
+
+        @Override
+        public void beforeCompletion() {
+            begin(Phase.COMMIT);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                end();
+                if (outcome == null) {
+                    outcome = Outcome.SUCCESS;
+                }
+            } else if (outcome == null) {
+                // Annulé sans rejet du virement (échec du commit ou de l'appelant)
+                outcome = Outcome.ERROR;
+            }
+            for (Phase phase : Phase.values()) {
+                if (reached[phase.ordinal()]) {
+                    timer(mode, phase, outcome).record(nanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+}
@@ -25,8 +25,10 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 @Builder
 public class Account {
 
+    // Séquence avec allocation par blocs (pooled) : pas d'aller-retour par insert et batching JDBC possible
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
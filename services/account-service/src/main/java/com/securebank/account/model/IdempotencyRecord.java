@@ -0,0 +1,50 @@
+package com.securebank.account.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réponse enregistrée pour une clé d'idempotence (en-tête Idempotency-Key).
+ * Insérée au début de la transaction SQL de l'opération : la contrainte unique (scope, clé)
+ * empêche une seconde exécution, même depuis une autre instance.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_scope_key", columnNames = {"scope", "idempotency_key"})
+}, indexes = {
+    @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_keys_seq")
+    @SequenceGenerator(name = "idempotency_keys_seq", sequenceName = "idempotency_keys_seq", allocationSize = 50)
+    private Long id;
+
+    // Opération et propriétaire de la clé (ex: "transfer:100", "deposit:42")
+    @Column(nullable = false, length = 100)
+    private String scope;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 de la requête : une même clé rejouée avec un autre contenu est refusée
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // DTO renvoyé lors de la première exécution, en JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -13,9 +13,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "transactions", indexes = {
-    @Index(name = "idx_from_account", columnList = "from_account_id"),
-    @Index(name = "idx_to_account", columnList = "to_account_id"),
-    @Index(name = "idx_created_at", columnList = "created_at"),
+    // Index composites pour la pagination par curseur (created_at, id) par compte
+    @Index(name = "idx_from_account_created", columnList = "from_account_id, created_at, id"),
+    @Index(name = "idx_to_account_created", columnList = "to_account_id, created_at, id"),
+    @Index(name = "idx_created_at_id", columnList = "created_at, id"),
     @Index(name = "idx_reference_id", columnList = "reference_id")
 })
 @EntityListeners(AuditingEntityListener.class)
@@ -25,8 +26,10 @@ import java.time.LocalDateTime;
 @Builder
 public class Transaction {
 
+    // Séquence avec allocation par blocs (pooled) : pas d'aller-retour par insert et batching JDBC possible
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -1,13 +1,17 @@
 package com.securebank.account.repository;
 
+import com.securebank.account.dto.AccountDTO;
 import com.securebank.account.model.Account;
 import com.securebank.account.model.Account.AccountStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +19,20 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
     
     List<Account> findByUserId(Long userId);
+
+    // Listing en lecture seule projeté directement en DTO : ni entité gérée, ni instantané de dirty-checking
+    @Query("SELECT new com.securebank.account.dto.AccountDTO(a.id, a.userId, a.accountNumber, a.accountType, " +
+           "a.balance, a.currency, a.status, a.createdAt, a.updatedAt) FROM Account a WHERE a.userId = :userId")
+    List<AccountDTO> findAccountDTOsByUserId(Long userId);
+
+    @Query("SELECT a.id FROM Account a WHERE a.userId = :userId")
+    List<Long> findIdsByUserId(Long userId);
     
     Optional<Account> findByAccountNumber(String accountNumber);
-    
-    Boolean existsByAccountNumber(String accountNumber);
+
+    // Résolution groupée des destinataires d'un lot de virements, sans les charger ni les verrouiller
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber IN :accountNumbers")
+    List<Long> findIdsByAccountNumberIn(Collection<String> accountNumbers);
     
     List<Account> findByUserIdAndStatus(Long userId, AccountStatus status);
     
@@ -26,4 +40,26 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdWithLock(Long id);
+
+    // Résout l'id d'un compte sans le charger ni le verrouiller
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(String accountNumber);
+
+    // Verrouille plusieurs comptes en un seul aller-retour, toujours par id croissant :
+    // deux virements croisés (A→B et B→A) prennent les verrous dans le même ordre et ne peuvent pas s'interbloquer
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdInWithLock(Collection<Long> ids);
+
+    // Débit atomique en une seule instruction : 0 ligne modifiée = solde insuffisant ou compte inactif
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, updated_at = now() " +
+                   "WHERE id = :id AND balance >= :amount AND status = 'ACTIVE'", nativeQuery = true)
+    int debitIfSufficient(Long id, BigDecimal amount);
+
+    // Crédit atomique : 0 ligne modifiée = compte inexistant ou inactif
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, updated_at = now() " +
+                   "WHERE id = :id AND status = 'ACTIVE'", nativeQuery = true)
+    int credit(Long id, BigDecimal amount);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.securebank.account.repository;
+
+import com.securebank.account.dto.TransactionDTO;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lectures d'historique projetées directement en DTO, sans passer par l'entité Transaction
+ */
+public interface TransactionProjectionRepository {
+
+    /**
+     * Historique complet d'un compte, du plus récent au plus ancien, vu depuis ce compte
+     * (une ligne TRANSFER de l'ancien format est présentée en TRANSFER_OUT ou TRANSFER_IN)
+     */
+    List<TransactionDTO> findAccountTransactionDTOs(Long accountId);
+
+    /**
+     * Lot keyset du fil de plusieurs comptes : au plus {@code limit} transactions strictement avant
+     * (createdAt, id), du plus récent au plus ancien, en une seule requête. Un virement entre 2 de ces
+     * comptes n'apparaît qu'une fois, vu depuis le compte émetteur.
+     */
+    List<TransactionDTO> findUserTransactionDTOsBefore(Collection<Long> accountIds, LocalDateTime createdAt,
+                                                       Long id, int limit);
+}
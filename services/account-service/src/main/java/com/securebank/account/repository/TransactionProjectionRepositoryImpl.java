@@ -0,0 +1,101 @@
+package com.securebank.account.repository;
+
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Transaction.TransactionStatus;
+import com.securebank.account.model.Transaction.TransactionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Fragment de TransactionRepository. La requête d'historique est un UNION ALL natif (fusion des 2 index
+ * composites) : JPA ne sait pas le projeter en DTO, les lignes sont donc lues par JDBC et chaque ligne
+ * construit directement son TransactionDTO, sans entité gérée ni instantané de dirty-checking.
+ */
+public class TransactionProjectionRepositoryImpl implements TransactionProjectionRepository {
+
+    private static final String COLUMNS =
+            "id, from_account_id, to_account_id, amount, currency, type, status, description, reference, " +
+            "created_at, completed_at";
+
+    private static final String ACCOUNT_TRANSACTIONS_SQL =
+            "SELECT " + COLUMNS + " FROM transactions WHERE from_account_id = ? " +
+            "UNION ALL " +
+            "SELECT " + COLUMNS + " FROM transactions WHERE to_account_id = ? AND from_account_id <> ? " +
+            "ORDER BY created_at DESC, id DESC";
+
+    /*
+     * Fil de plusieurs comptes : même découpage en 2 branches que l'historique d'un compte, sur des listes IN.
+     * La 2e branche exclut les lignes de la 1re (virements internes) ; chaque branche s'arrête après :limit
+     * lignes. %1$s = liste de paramètres des ids de comptes.
+     */
+    private static final String USER_TRANSACTIONS_BEFORE_SQL =
+            "(SELECT " + COLUMNS + " FROM transactions WHERE from_account_id IN (%1$s) " +
+            "   AND created_at <= ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT " + COLUMNS + " FROM transactions WHERE to_account_id IN (%1$s) AND from_account_id NOT IN (%1$s) " +
+            "   AND created_at <= ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?) " +
+            "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionProjectionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<TransactionDTO> findAccountTransactionDTOs(Long accountId) {
+        return jdbcTemplate.query(ACCOUNT_TRANSACTIONS_SQL,
+                (rs, rowNum) -> toDTO(rs, id -> id == accountId), accountId, accountId, accountId);
+    }
+
+    @Override
+    public List<TransactionDTO> findUserTransactionDTOsBefore(Collection<Long> accountIds, LocalDateTime createdAt,
+                                                              Long id, int limit) {
+        Set<Long> ownAccounts = Set.copyOf(accountIds);
+        String sql = String.format(USER_TRANSACTIONS_BEFORE_SQL,
+                String.join(", ", Collections.nCopies(ownAccounts.size(), "?")));
+
+        List<Object> args = new ArrayList<>(3 * ownAccounts.size() + 9);
+        args.addAll(ownAccounts);
+        args.addAll(List.of(createdAt, createdAt, id, limit));
+        args.addAll(ownAccounts);
+        args.addAll(ownAccounts);
+        args.addAll(List.of(createdAt, createdAt, id, limit, limit));
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> toDTO(rs, ownAccounts::contains), args.toArray());
+    }
+
+    /**
+     * @param ownAccount comptes du point de vue desquels la ligne est présentée : une ligne TRANSFER de
+     *                   l'ancien format est un TRANSFER_OUT si son émetteur en fait partie
+     */
+    private static TransactionDTO toDTO(ResultSet rs, LongPredicate ownAccount) throws SQLException {
+        long fromAccountId = rs.getLong("from_account_id");
+        long toAccountId = rs.getLong("to_account_id");
+        TransactionType type = TransactionType.valueOf(rs.getString("type"));
+        if (type == TransactionType.TRANSFER) {
+            type = ownAccount.test(fromAccountId) ? TransactionType.TRANSFER_OUT : TransactionType.TRANSFER_IN;
+        }
+        return new TransactionDTO(
+                rs.getLong("id"),
+                fromAccountId,
+                toAccountId,
+                rs.getBigDecimal("amount"),
+                rs.getString("currency"),
+                type,
+                TransactionStatus.valueOf(rs.getString("status")),
+                rs.getString("description"),
+                rs.getString("reference"),
+                rs.getObject("created_at", LocalDateTime.class),
+                rs.getObject("completed_at", LocalDateTime.class));
+    }
+}
@@ -2,36 +2,97 @@ package com.securebank.account.repository;
 
 import com.securebank.account.model.Transaction;
 import com.securebank.account.model.Transaction.TransactionStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionProjectionRepository {
     
-	List<Transaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
-	
-    List<Transaction> findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(
-            Long fromAccountId, Long toAccountId);
-    
-    Page<Transaction> findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(
-            Long fromAccountId, Long toAccountId, Pageable pageable);
+    /*
+     * Historique d'un compte sans OR : chaque branche du UNION ALL suit son index composite
+     * (from|to_account_id, created_at, id) à rebours et la base fusionne les 2 flux déjà triés
+     * (Merge Append), sans tri complet. La 2e branche exclut les lignes déjà lues par la 1re.
+     */
+    @Query(value = "SELECT * FROM transactions WHERE from_account_id = :accountId " +
+                   "UNION ALL " +
+                   "SELECT * FROM transactions WHERE to_account_id = :accountId AND from_account_id <> :accountId " +
+                   "ORDER BY created_at DESC, id DESC", nativeQuery = true)
+    List<Transaction> findAccountTransactions(Long accountId);
+
+    // Page OFFSET : le LIMIT est poussé dans chaque branche, qui ne lit que limit + offset lignes
+    @Query(value = "(SELECT * FROM transactions WHERE from_account_id = :accountId " +
+                   "   ORDER BY created_at DESC, id DESC LIMIT :limit + :offset) " +
+                   "UNION ALL " +
+                   "(SELECT * FROM transactions WHERE to_account_id = :accountId AND from_account_id <> :accountId " +
+                   "   ORDER BY created_at DESC, id DESC LIMIT :limit + :offset) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Transaction> findAccountTransactionsPage(Long accountId, int limit, long offset);
+
+    @Query(value = "SELECT (SELECT COUNT(*) FROM transactions WHERE from_account_id = :accountId) + " +
+                   "(SELECT COUNT(*) FROM transactions WHERE to_account_id = :accountId AND from_account_id <> :accountId)",
+           nativeQuery = true)
+    long countAccountTransactions(Long accountId);
     
     List<Transaction> findByStatus(TransactionStatus status);
     
     List<Transaction> findByReferenceId(String referenceId);
     
-    @Query("SELECT t FROM Transaction t WHERE " +
-           "(t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
-           "AND t.createdAt BETWEEN :startDate AND :endDate " +
-           "ORDER BY t.createdAt DESC")
-    List<Transaction> findAccountTransactionsBetweenDates(
-            Long accountId, LocalDateTime startDate, LocalDateTime endDate);
-    
     Boolean existsByReference(String reference);
-}
\ No newline at end of file
+
+    /*
+     * Pagination par curseur (keyset) : on reprend strictement après (createdAt, id) au lieu d'un OFFSET.
+     * Chaque branche du UNION ALL parcourt un seul index (from|to_account_id, created_at, id) à rebours
+     * et s'arrête après :limit lignes, quelle que soit la profondeur de la page.
+     * Le filtre redondant created_at <= :createdAt permet d'élaguer les partitions mensuelles.
+     */
+    @Query(value = "(SELECT * FROM transactions WHERE from_account_id = :accountId " +
+                   "   AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id) ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT * FROM transactions WHERE to_account_id = :accountId AND from_account_id <> :accountId " +
+                   "   AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id) ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Transaction> findAccountTransactionsBefore(
+            Long accountId, LocalDateTime createdAt, Long id, int limit);
+
+    /*
+     * Toutes les transactions de plusieurs comptes en une seule requête, sans OR : chaque branche suit
+     * son index (from|to_account_id, created_at, id) ; seules les lignes de ces comptes sont triées.
+     * La 2e branche exclut les virements entre comptes de la liste, déjà lus par la 1re.
+     */
+    @Query(value = "SELECT * FROM transactions WHERE from_account_id IN (:accountIds) " +
+                   "UNION ALL " +
+                   "SELECT * FROM transactions WHERE to_account_id IN (:accountIds) AND from_account_id NOT IN (:accountIds) " +
+                   "ORDER BY created_at DESC, id DESC", nativeQuery = true)
+    List<Transaction> findByAccountIds(Collection<Long> accountIds);
+
+    @Query(value = "SELECT (SELECT COUNT(*) FROM transactions WHERE from_account_id IN (:accountIds)) + " +
+                   "(SELECT COUNT(*) FROM transactions WHERE to_account_id IN (:accountIds) AND from_account_id NOT IN (:accountIds))",
+           nativeQuery = true)
+    long countByAccountIds(Collection<Long> accountIds);
+
+    /*
+     * Export : lecture en flux via un curseur serveur (fetch size borné, entités en lecture seule).
+     * Doit être consommé dans une transaction, sinon le driver PostgreSQL charge tout le résultat.
+     * Les 2 branches suivent les index (from|to_account_id, created_at, id) et sont fusionnées par la base.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT * FROM transactions WHERE from_account_id = :accountId " +
+                   "   AND created_at >= :startDate AND created_at < :endDate " +
+                   "UNION ALL " +
+                   "SELECT * FROM transactions WHERE to_account_id = :accountId AND from_account_id <> :accountId " +
+                   "   AND created_at >= :startDate AND created_at < :endDate " +
+                   "ORDER BY created_at, id", nativeQuery = true)
+    Stream<Transaction> streamAccountTransactions(Long accountId, LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,52 @@
+package com.securebank.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Invalidation des caches de comptes après un mouvement de solde.
+ *
+ * Les entrées sont évincées après le commit : évincer avant laisserait une lecture concurrente
+ * remettre en cache le solde d'avant le virement jusqu'à l'expiration du TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountCacheEvictor {
+
+    // Compte par id (détail et solde)
+    public static final String ACCOUNT_CACHE = "account";
+
+    // Liste des comptes d'un utilisateur, par userId
+    public static final String USER_ACCOUNTS_CACHE = "accounts";
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Évince les comptes modifiés et les listes de comptes de leurs propriétaires
+     */
+    public void evictAfterCommit(Collection<Long> accountIds, Collection<Long> userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(accountIds, userIds);
+                }
+            });
+        } else {
+            evict(accountIds, userIds);
+        }
+    }
+
+    private void evict(Collection<Long> accountIds, Collection<Long> userIds) {
+        Cache accountCache = cacheManager.getCache(ACCOUNT_CACHE);
+        Cache userAccountsCache = cacheManager.getCache(USER_ACCOUNTS_CACHE);
+        accountIds.forEach(accountCache::evict);
+        userIds.forEach(userAccountsCache::evict);
+    }
+}
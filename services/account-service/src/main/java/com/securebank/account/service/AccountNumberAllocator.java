@@ -0,0 +1,114 @@
+package com.securebank.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Attribution des numéros de compte (IBAN FR) sans aller-retour base par compte.
+ *
+ * Chaque instance réserve un bloc de BLOCK_SIZE numéros avec un seul nextval sur account_number_block_seq
+ * (bloc n = numéros n * BLOCK_SIZE .. n * BLOCK_SIZE + BLOCK_SIZE - 1). Les blocs ne se recouvrent jamais
+ * entre instances : aucune vérification d'existence n'est nécessaire, la contrainte unique sur
+ * account_number reste le filet de sécurité. Un bloc entamé est perdu au redémarrage (trous acceptés).
+ *
+ * Format : FR + clé IBAN (2) + code banque (5) + code guichet (5) + numéro de compte (11) + clé RIB (2),
+ * clé RIB et clé IBAN calculées (mod 97) directement sur les chiffres, sans String.format ni BigInteger.
+ */
+@Component
+@Slf4j
+public class AccountNumberAllocator {
+
+    static final String BLOCK_SEQUENCE = "account_number_block_seq";
+
+    // Taille figée : la changer ferait chevaucher les blocs déjà distribués
+    static final int BLOCK_SIZE = 1000;
+
+    private static final long MAX_ACCOUNT_NUMBER = 99_999_999_999L;
+    static final int IBAN_LENGTH = 27;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final char[] bankCode;
+    private final char[] branchCode;
+
+    private long next;
+    private long blockEnd;
+
+    public AccountNumberAllocator(JdbcTemplate jdbcTemplate,
+                                  @Value("${accounts.numbering.bank-code:12345}") String bankCode,
+                                  @Value("${accounts.numbering.branch-code:00010}") String branchCode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bankCode = digits(bankCode, "bank-code");
+        this.branchCode = digits(branchCode, "branch-code");
+    }
+
+    /**
+     * Prochain numéro de compte ; seul l'épuisement du bloc courant touche la base
+     */
+    public String nextAccountNumber() {
+        return format(nextSequence());
+    }
+
+    private synchronized long nextSequence() {
+        if (next == blockEnd) {
+            long block = jdbcTemplate.queryForObject("SELECT nextval('" + BLOCK_SEQUENCE + "')", Long.class);
+            next = block * BLOCK_SIZE;
+            blockEnd = next + BLOCK_SIZE;
+            if (blockEnd - 1 > MAX_ACCOUNT_NUMBER) {
+                throw new IllegalStateException("Account number space exhausted");
+            }
+            log.info("Reserved account number block {} ({}..{})", block, next, blockEnd - 1);
+        }
+        return next++;
+    }
+
+    String format(long sequence) {
+        char[] iban = new char[IBAN_LENGTH];
+        iban[0] = 'F';
+        iban[1] = 'R';
+        System.arraycopy(bankCode, 0, iban, 4, 5);
+        System.arraycopy(branchCode, 0, iban, 9, 5);
+        writeDigits(iban, 14, 11, sequence);
+
+        // Clé RIB : 97 - (89 * banque + 15 * guichet + 3 * compte) mod 97
+        long bank = parse(iban, 4, 5);
+        long branch = parse(iban, 9, 5);
+        int ribKey = (int) (97 - (89 * bank + 15 * branch + 3 * (sequence % 97)) % 97);
+        writeDigits(iban, 25, 2, ribKey);
+
+        // Clé IBAN : 98 - (BBAN + "FR00" en chiffres, F=15, R=27) mod 97
+        int remainder = 0;
+        for (int i = 4; i < IBAN_LENGTH; i++) {
+            remainder = (remainder * 10 + (iban[i] - '0')) % 97;
+        }
+        remainder = (remainder * 100 + 15) % 97;
+        remainder = (remainder * 100 + 27) % 97;
+        remainder = (remainder * 100) % 97;
+        writeDigits(iban, 2, 2, 98 - remainder);
+
+        return new String(iban);
+    }
+
+    private static void writeDigits(char[] target, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static long parse(char[] source, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = value * 10 + (source[i] - '0');
+        }
+        return value;
+    }
+
+    private static char[] digits(String code, String property) {
+        if (code == null || code.length() != 5 || !code.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("accounts.numbering." + property + " must be 5 digits: " + code);
+        }
+        return code.toCharArray();
+    }
+}
@@ -2,14 +2,16 @@ package com.securebank.account.service;
 
 import com.securebank.account.dto.AccountDTO;
 import com.securebank.account.dto.CreateAccountRequest;
-import com.securebank.account.exception.AccountAlreadyExistsException;
 import com.securebank.account.exception.AccountNotFoundException;
 import com.securebank.account.model.Account;
 import com.securebank.account.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +22,6 @@ import com.securebank.account.repository.TransactionRepository;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 
 
@@ -31,24 +31,22 @@ import java.time.LocalDateTime;
 public class AccountService {
 
     private final AccountRepository accountRepository;
-    private static final Random RANDOM = new Random();
     private final TransactionRepository transactionRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final StripedBalanceService stripedBalanceService;
+    private final CacheManager cacheManager;
+    private final AccountCacheEvictor accountCacheEvictor;
 
     /**
      * Créer un nouveau compte bancaire
      */
     @Transactional
-    @CacheEvict(value = "accounts", key = "#userId")
+    @CacheEvict(value = AccountCacheEvictor.USER_ACCOUNTS_CACHE, key = "#userId")
     public AccountDTO createAccount(Long userId, CreateAccountRequest request) {
         log.info("Creating new account for user: {}, type: {}", userId, request.getAccountType());
 
-        // Générer un numéro de compte unique
-        String accountNumber = generateAccountNumber();
-        
-        // Vérifier que le numéro n'existe pas déjà (très peu probable)
-        while (accountRepository.existsByAccountNumber(accountNumber)) {
-            accountNumber = generateAccountNumber();
-        }
+        // Numéro unique par construction (bloc de séquence réservé) : pas de vérification d'existence
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
 
         // Créer le compte
         Account account = Account.builder()
@@ -71,42 +69,44 @@ public class AccountService {
     /**
      * Récupérer tous les comptes d'un utilisateur
      */
-    @Cacheable(value = "accounts", key = "#userId")
+    @Cacheable(value = AccountCacheEvictor.USER_ACCOUNTS_CACHE, key = "#userId", sync = true)
     public List<AccountDTO> getUserAccounts(Long userId) {
         log.info("Fetching accounts for user: {}", userId);
 
-        List<Account> accounts = accountRepository.findByUserId(userId);
+        List<AccountDTO> accounts = accountRepository.findAccountDTOsByUserId(userId);
 
-        return accounts.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        // Compte à sous-soldes : le solde inclut les crédits encore dans les stripes
+        for (AccountDTO account : accounts) {
+            if (stripedBalanceService.isStriped(account.getId())) {
+                account.setBalance(account.getBalance().add(stripedBalanceService.pendingCredits(account.getId())));
+            }
+        }
+        return accounts;
     }
 
     /**
-     * Récupérer un compte par son ID
+     * Récupérer un compte par son ID (servi par le cache "account")
      */
     public AccountDTO getAccountById(Long accountId, Long userId) {
         log.info("Fetching account: id={}, userId={}", accountId, userId);
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId));
+        AccountDTO account = findAccount(accountId);
 
         // Vérifier que le compte appartient à l'utilisateur
         if (!account.getUserId().equals(userId)) {
             throw new AccountNotFoundException("Account not found or unauthorized");
         }
 
-        return mapToDTO(account);
+        return account;
     }
 
     /**
-     * Récupérer le solde d'un compte
+     * Récupérer le solde d'un compte (servi par le cache "account", sous-soldes inclus)
      */
     public BigDecimal getAccountBalance(Long accountId, Long userId) {
         log.info("Fetching balance: accountId={}, userId={}", accountId, userId);
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId));
+        AccountDTO account = findAccount(accountId);
 
         if (!account.getUserId().equals(userId)) {
             throw new AccountNotFoundException("Account not found or unauthorized");
@@ -119,7 +119,10 @@ public class AccountService {
      * Suspendre un compte
      */
     @Transactional
-    @CacheEvict(value = "accounts", key = "#userId")
+    @Caching(evict = {
+            @CacheEvict(value = AccountCacheEvictor.USER_ACCOUNTS_CACHE, key = "#userId"),
+            @CacheEvict(value = AccountCacheEvictor.ACCOUNT_CACHE, key = "#accountId")
+    })
     public AccountDTO suspendAccount(Long accountId, Long userId) {
         log.info("Suspending account: id={}, userId={}", accountId, userId);
 
@@ -142,7 +145,10 @@ public class AccountService {
      * Réactiver un compte
      */
     @Transactional
-    @CacheEvict(value = "accounts", key = "#userId")
+    @Caching(evict = {
+            @CacheEvict(value = AccountCacheEvictor.USER_ACCOUNTS_CACHE, key = "#userId"),
+            @CacheEvict(value = AccountCacheEvictor.ACCOUNT_CACHE, key = "#accountId")
+    })
     public AccountDTO activateAccount(Long accountId, Long userId) {
         log.info("Activating account: id={}, userId={}", accountId, userId);
 
@@ -162,37 +168,37 @@ public class AccountService {
     }
 
     /**
-     * Générer un numéro de compte au format IBAN FR
-     * Format: FR76 + 10 chiffres bancaires + 11 chiffres compte + 2 clé
+     * Lecture du compte par id via le cache (chargements concurrents dédoublonnés) ;
+     * les mouvements de solde l'évincent après commit
      */
-    private String generateAccountNumber() {
-        StringBuilder accountNumber = new StringBuilder("FR76");
-        
-        // Code banque (5 chiffres)
-        accountNumber.append(String.format("%05d", RANDOM.nextInt(100000)));
-        
-        // Code guichet (5 chiffres)
-        accountNumber.append(String.format("%05d", RANDOM.nextInt(100000)));
-        
-        // Numéro de compte (11 chiffres)
-        accountNumber.append(String.format("%011d", RANDOM.nextInt(1000000000)));
-        
-        // Clé RIB (2 chiffres)
-        accountNumber.append(String.format("%02d", RANDOM.nextInt(100)));
-        
-        return accountNumber.toString();
+    private AccountDTO findAccount(Long accountId) {
+        Cache cache = cacheManager.getCache(AccountCacheEvictor.ACCOUNT_CACHE);
+        try {
+            return cache.get(accountId, () -> mapToDTO(accountRepository.findById(accountId)
+                    .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId))));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     /**
      * Mapper Account → AccountDTO
+     * (compte à sous-soldes : le solde inclut les crédits encore dans les stripes)
      */
     private AccountDTO mapToDTO(Account account) {
+        BigDecimal balance = stripedBalanceService.isStriped(account.getId())
+                ? account.getBalance().add(stripedBalanceService.pendingCredits(account.getId()))
+                : account.getBalance();
+
         return AccountDTO.builder()
                 .id(account.getId())
                 .userId(account.getUserId())
                 .accountNumber(account.getAccountNumber())
                 .accountType(account.getAccountType())
-                .balance(account.getBalance())
+                .balance(balance)
                 .currency(account.getCurrency())
                 .status(account.getStatus())
                 .createdAt(account.getCreatedAt())
@@ -202,15 +208,12 @@ public class AccountService {
     
     @Transactional
     public AccountDTO deposit(Long accountId, BigDecimal amount, String description) {
-        // 1. Récupérer le compte
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException("Compte non trouvé"));
-
-        // 2. Mettre à jour le solde
-        account.setBalance(account.getBalance().add(amount));
-        accountRepository.save(account);
+        // 1. Créditer le compte en une seule instruction (pas de lecture-modification-écriture)
+        if (accountRepository.credit(accountId, amount) == 0) {
+            throw new AccountNotFoundException("Compte non trouvé ou inactif");
+        }
 
-        // 3. Créer l'enregistrement de transaction (pour le Test 10)
+        // 2. Créer l'enregistrement de transaction (pour le Test 10)
         Transaction transaction = Transaction.builder()
                 .fromAccountId(0L) 
                 .toAccountId(accountId)
@@ -222,6 +225,13 @@ public class AccountService {
                 .build();
         transactionRepository.save(transaction);
 
+        // 3. Relire le compte pour renvoyer le solde à jour
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Compte non trouvé"));
+
+        // 4. Le solde a changé : compte et liste des comptes du titulaire à évincer
+        accountCacheEvictor.evictAfterCommit(List.of(accountId), List.of(account.getUserId()));
+
         return mapToDTO(account);
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.securebank.account.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.account.exception.IdempotencyKeyReuseException;
+import com.securebank.account.exception.InvalidIdempotencyKeyException;
+import com.securebank.account.model.IdempotencyRecord;
+import com.securebank.account.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Exécution au plus une fois des opérations portant un en-tête Idempotency-Key (virement, dépôt).
+ *
+ * La clé est insérée dans idempotency_keys au début de la transaction SQL de l'opération, qui y enregistre
+ * ensuite sa réponse : une clé déjà validée renvoie le DTO enregistré sans rien rejouer. La contrainte
+ * unique (scope, clé) tranche entre instances : un doublon échoue à l'insertion, avant d'exécuter
+ * l'opération, et renvoie la réponse de la première. Sur une même instance, les doublons concurrents
+ * attendent la tentative en cours.
+ *
+ * Un filtre de Bloom des clés vues évite la lecture en base pour une clé neuve (cas courant). Il est
+ * renouvelé à chaque période de rétention ; l'ancienne génération reste consultée une période de plus.
+ * Le filtre est en mémoire seulement : après un redémarrage, c'est l'insertion de la clé qui détecte
+ * les doublons.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    static final String METRIC = "idempotency.requests";
+    static final int MAX_KEY_LENGTH = 100;
+
+    // Réponse d'une clé réservée dont l'opération n'est pas encore validée (jamais visible hors transaction)
+    static final String PENDING_RESPONSE = "";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final int expectedKeys;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private volatile IdempotencyKeyFilter currentKeys;
+    private volatile IdempotencyKeyFilter previousKeys;
+
+    private final Counter skippedLookups;
+    private final Counter missedLookups;
+    private final Counter replays;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.retention:PT24H}") Duration retention,
+                              @Value("${idempotency.expected-keys:1000000}") int expectedKeys) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.expectedKeys = expectedKeys;
+        this.currentKeys = new IdempotencyKeyFilter(expectedKeys, 0.001);
+        this.previousKeys = new IdempotencyKeyFilter(expectedKeys, 0.001);
+        this.skippedLookups = counter(meterRegistry, "new");
+        this.missedLookups = counter(meterRegistry, "checked");
+        this.replays = counter(meterRegistry, "replayed");
+    }
+
+    /**
+     * Exécute {@code operation} une seule fois pour (scope, clé) ; sans clé, l'exécute simplement.
+     *
+     * @param scope   opération et propriétaire de la clé, ex. "transfer:" + userId
+     * @param request corps de la requête, comparé à celui de la première exécution
+     */
+    public <T> T execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+                         Supplier<T> operation) {
+        if (idempotencyKey == null) {
+            return operation.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = scope + '|' + idempotencyKey;
+        CompletableFuture<Void> attempt = new CompletableFuture<>();
+        CompletableFuture<Void> running;
+        // Doublon concurrent sur cette instance : attendre la fin de la tentative en cours, puis relire
+        while ((running = inFlight.putIfAbsent(scopedKey, attempt)) != null) {
+            running.handle((result, error) -> null).join();
+        }
+
+        try {
+            return executeOnce(scope, idempotencyKey, scopedKey, hash(request), responseType, operation);
+        } finally {
+            inFlight.remove(scopedKey, attempt);
+            attempt.complete(null);
+        }
+    }
+
+    private <T> T executeOnce(String scope, String idempotencyKey, String scopedKey, String requestHash,
+                              Class<T> responseType, Supplier<T> operation) {
+        if (currentKeys.mightContain(scopedKey) || previousKeys.mightContain(scopedKey)) {
+            Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, idempotencyKey);
+            if (stored.isPresent()) {
+                return replay(stored.get(), requestHash, responseType);
+            }
+            missedLookups.increment();
+        } else {
+            skippedLookups.increment();
+        }
+
+        try {
+            T response = transactionTemplate.execute(status -> {
+                // Clé réservée avant l'opération : un doublon (autre instance, ou filtre vidé par un redémarrage)
+                // bute sur la contrainte unique avant d'avoir rien exécuté
+                IdempotencyRecord record = idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .scope(scope)
+                        .idempotencyKey(idempotencyKey)
+                        .requestHash(requestHash)
+                        .response(PENDING_RESPONSE)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                T result = operation.get();
+                // L'opération peut vider le contexte de persistance (UPDATE @Modifying) : réponse écrite par merge
+                record.setResponse(toJson(result));
+                idempotencyRecordRepository.save(record);
+                return result;
+            });
+            currentKeys.put(scopedKey);
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // Même clé déjà enregistrée, ou validée entre-temps par une autre instance : la sienne fait foi
+            IdempotencyRecord stored = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, idempotencyKey)
+                    .orElseThrow(() -> e);
+            currentKeys.put(scopedKey);
+            log.info("Concurrent duplicate resolved by unique constraint: scope={}", scope);
+            return replay(stored, requestHash, responseType);
+        }
+    }
+
+    /**
+     * Purge des clés plus anciennes que la rétention
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}")
+    public void purgeExpiredKeys() {
+        Integer purged = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+        log.info("Purged {} expired idempotency keys", purged);
+    }
+
+    /**
+     * Nouvelle génération du filtre de Bloom à chaque période de rétention (un filtre ne se vide pas)
+     */
+    @Scheduled(fixedDelayString = "${idempotency.retention:PT24H}", initialDelayString = "${idempotency.retention:PT24H}")
+    public void rotateKeyFilter() {
+        previousKeys = currentKeys;
+        currentKeys = new IdempotencyKeyFilter(expectedKeys, 0.001);
+    }
+
+    private <T> T replay(IdempotencyRecord stored, String requestHash, Class<T> responseType) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key already used with a different request");
+        }
+        replays.increment();
+        try {
+            return objectMapper.readValue(stored.getResponse(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored idempotent response: " + stored.getId(), e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent response", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(METRIC)
+                .description("Requests carrying an Idempotency-Key, by lookup outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -21,17 +21,17 @@ public class KafkaProducerService {
     private String transactionEventsTopic;
 
     /**
-     * Publie un événement de transaction sur Kafka
+     * Publie un événement de transaction sur Kafka, sans attendre l'ack
      */
-    public void publishTransactionEvent(TransactionEvent event) {
-        log.info("Publishing transaction event: {}", event.getTransactionId());
+    public CompletableFuture<SendResult<String, TransactionEvent>> publishTransactionEvent(TransactionEvent event) {
+        log.debug("Publishing transaction event: {}", event.getTransactionId());
 
         CompletableFuture<SendResult<String, TransactionEvent>> future = 
                 kafkaTemplate.send(transactionEventsTopic, event.getTransactionId().toString(), event);
 
         future.whenComplete((result, ex) -> {
             if (ex == null) {
-                log.info("Transaction event published successfully: transactionId={}, offset={}", 
+                log.debug("Transaction event published successfully: transactionId={}, offset={}", 
                         event.getTransactionId(), 
                         result.getRecordMetadata().offset());
             } else {
@@ -39,5 +39,6 @@ public class KafkaProducerService {
                         event.getTransactionId(), ex);
             }
         });
+        return future;
     }
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+package com.securebank.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rapprochement du solde de chaque compte avec son grand livre : accounts.balance (plus les stripes
+ * d'un compte à sous-soldes) doit égaler son solde d'ouverture plus la somme signée de ses transactions
+ * COMPLETED. Le solde d'ouverture (ledger_opening_balances) cumule les mois détachés de transactions
+ * par la rétention du partitionnement ; il est écrit dans la transaction qui les détache.
+ *
+ * L'espace des ids de comptes est découpé en tranches de {@code chunk-size} ids, vérifiées en parallèle
+ * sur un ForkJoinPool de {@code parallelism} threads (une connexion chacun). Une tranche est vérifiée
+ * par une seule requête d'agrégation, en transaction lecture seule (donc sur la réplique si elle est
+ * activée) : la base fait les sommes et ne renvoie que les comptes en écart. Une requête ne pose aucun
+ * verrou de ligne et lit un instantané cohérent des soldes et du grand livre : un virement en cours
+ * n'est jamais compté à moitié.
+ *
+ * Les écarts sont enregistrés dans ledger_mismatches et comptés dans la métrique
+ * ledger.reconciliation.mismatches. Les tranches non commencées après {@code max-duration} sont
+ * abandonnées (run incomplet). Une seule instance à la fois exécute le rapprochement planifié : elle
+ * prend un bail dans job_leases, qui expire de lui-même si elle s'arrête en cours de route.
+ */
+@Component
+@Slf4j
+public class LedgerReconciliationService {
+
+    static final String MISMATCHES_METRIC = "ledger.reconciliation.mismatches";
+    static final String CHUNK_METRIC = "ledger.reconciliation.chunk";
+    static final String SKIPPED_CHUNKS_METRIC = "ledger.reconciliation.chunks.skipped";
+    static final String LAST_RUN_MISMATCHES_METRIC = "ledger.reconciliation.last.mismatches";
+
+    // Crédits : dépôts, virements reçus ; débits : virements émis, retraits, paiements.
+    // Une ligne TRANSFER (ancien format à une ligne) débite l'émetteur et crédite le récepteur.
+    static final String CREDIT_TYPES = "'DEPOSIT', 'TRANSFER_IN', 'TRANSFER'";
+    static final String DEBIT_TYPES = "'TRANSFER_OUT', 'TRANSFER', 'WITHDRAWAL', 'PAYMENT'";
+
+    private static final String LEASE_NAME = "ledger-reconciliation";
+    // Le bail couvre la fenêtre du run plus la dernière tranche commencée avant l'échéance
+    private static final Duration LEASE_MARGIN = Duration.ofMinutes(15);
+
+    private static final String MISMATCH_SQL =
+            "SELECT a.id, a.balance + COALESCE(s.pending, 0) AS recorded, " +
+            "       COALESCE(o.balance, 0) + COALESCE(l.ledger, 0) AS ledger " +
+            "FROM accounts a " +
+            "LEFT JOIN (SELECT account_id, SUM(balance) AS pending FROM account_balance_stripes " +
+            "           WHERE account_id BETWEEN ? AND ? GROUP BY account_id) s ON s.account_id = a.id " +
+            "LEFT JOIN ledger_opening_balances o ON o.account_id = a.id " +
+            "LEFT JOIN (SELECT account_id, SUM(delta) AS ledger FROM (" +
+            "               SELECT to_account_id AS account_id, amount AS delta FROM transactions " +
+            "               WHERE status = 'COMPLETED' AND type IN (" + CREDIT_TYPES + ") " +
+            "               AND to_account_id BETWEEN ? AND ? " +
+            "               UNION ALL " +
+            "               SELECT from_account_id, -amount FROM transactions " +
+            "               WHERE status = 'COMPLETED' AND type IN (" + DEBIT_TYPES + ") " +
+            "               AND from_account_id BETWEEN ? AND ?" +
+            "           ) t GROUP BY account_id) l ON l.account_id = a.id " +
+            "WHERE a.id BETWEEN ? AND ? " +
+            "AND a.balance + COALESCE(s.pending, 0) <> COALESCE(o.balance, 0) + COALESCE(l.ledger, 0)";
+
+    // Pris si absent ou expiré ; une seule ligne modifiée = bail obtenu
+    private static final String ACQUIRE_LEASE_SQL =
+            "INSERT INTO job_leases (name, owner, expires_at) VALUES (?, ?, now() + make_interval(secs => ?)) " +
+            "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at " +
+            "WHERE job_leases.expires_at < now()";
+
+    private static final String INSERT_MISMATCH_SQL =
+            "INSERT INTO ledger_mismatches (run_id, account_id, recorded_balance, ledger_balance) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final long chunkSize;
+    private final Duration maxDuration;
+
+    private final Counter mismatchCounter;
+    private final Counter skippedChunks;
+    private final Timer chunkTimer;
+    private final AtomicLong lastRunMismatches = new AtomicLong();
+
+    /**
+     * Bilan d'un rapprochement
+     *
+     * @param complete false si des tranches ont été abandonnées faute de temps
+     */
+    public record Report(String runId, long chunks, long skippedChunks, long mismatches, Duration duration,
+                         boolean complete) {
+    }
+
+    /**
+     * Écart constaté sur un compte
+     */
+    record Mismatch(long accountId, BigDecimal recordedBalance, BigDecimal ledgerBalance) {
+    }
+
+    public LedgerReconciliationService(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${ledger.reconciliation.parallelism:4}") int parallelism,
+                                       @Value("${ledger.reconciliation.chunk-size:10000}") long chunkSize,
+                                       @Value("${ledger.reconciliation.max-duration:PT2H}") Duration maxDuration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.maxDuration = maxDuration;
+        this.mismatchCounter = Counter.builder(MISMATCHES_METRIC)
+                .description("Accounts whose balance differs from their ledger")
+                .register(meterRegistry);
+        this.skippedChunks = Counter.builder(SKIPPED_CHUNKS_METRIC)
+                .description("Account id chunks not reconciled within the run window")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder(CHUNK_METRIC)
+                .description("Time to reconcile one chunk of account ids")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge(LAST_RUN_MISMATCHES_METRIC, lastRunMismatches);
+    }
+
+    /**
+     * Rapprochement planifié ("-" pour désactiver), sauf si une autre instance détient le bail.
+     * Le bail est une ligne, pas un verrou de session : aucune connexion n'est gardée pendant le run.
+     */
+    @Scheduled(cron = "${ledger.reconciliation.cron:0 30 2 * * *}")
+    public void scheduledReconciliation() {
+        String owner = UUID.randomUUID().toString();
+        long leaseSeconds = maxDuration.plus(LEASE_MARGIN).toSeconds();
+        if (jdbcTemplate.update(ACQUIRE_LEASE_SQL, LEASE_NAME, owner, leaseSeconds) == 0) {
+            log.info("Ledger reconciliation already running on another instance, skipping");
+            return;
+        }
+        try {
+            reconcile();
+        } finally {
+            jdbcTemplate.update("DELETE FROM job_leases WHERE name = ? AND owner = ?", LEASE_NAME, owner);
+        }
+    }
+
+    /**
+     * Rapproche tous les comptes, tranche par tranche, en parallèle
+     */
+    public Report reconcile() {
+        String runId = UUID.randomUUID().toString();
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + maxDuration.toNanos();
+
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM accounts");
+        if (bounds.get("min_id") == null) {
+            return new Report(runId, 0, 0, 0, Duration.ZERO, true);
+        }
+        long minId = ((Number) bounds.get("min_id")).longValue();
+        long maxId = ((Number) bounds.get("max_id")).longValue();
+        log.info("Starting ledger reconciliation: runId={}, accounts {}..{}, chunkSize={}, parallelism={}",
+                runId, minId, maxId, chunkSize, parallelism);
+
+        AtomicLong chunks = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong mismatches = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ChunkTask(runId, minId, maxId, deadlineNanos, chunks, skipped, mismatches));
+        } finally {
+            pool.shutdown();
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+        lastRunMismatches.set(mismatches.get());
+        Report report = new Report(runId, chunks.get(), skipped.get(), mismatches.get(), duration, skipped.get() == 0);
+        if (report.complete()) {
+            log.info("Ledger reconciliation completed: runId={}, chunks={}, mismatches={}, duration={}",
+                    runId, report.chunks(), report.mismatches(), duration);
+        } else {
+            log.warn("Ledger reconciliation incomplete: runId={}, chunks={}, skipped={}, mismatches={}, duration={}",
+                    runId, report.chunks(), report.skippedChunks(), report.mismatches(), duration);
+        }
+        return report;
+    }
+
+    /**
+     * Vérifie les comptes d'ids [fromId, toId] et enregistre leurs écarts
+     *
+     * @return nombre de comptes en écart
+     */
+    int reconcileChunk(String runId, long fromId, long toId) {
+        List<Mismatch> found = new ArrayList<>();
+        chunkTimer.record(() -> readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(MISMATCH_SQL, rs -> {
+            found.add(new Mismatch(rs.getLong("id"), rs.getBigDecimal("recorded"), rs.getBigDecimal("ledger")));
+        }, fromId, toId, fromId, toId, fromId, toId, fromId, toId)));
+
+        if (!found.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MISMATCH_SQL, found, found.size(), (statement, mismatch) -> {
+                statement.setString(1, runId);
+                statement.setLong(2, mismatch.accountId());
+                statement.setBigDecimal(3, mismatch.recordedBalance());
+                statement.setBigDecimal(4, mismatch.ledgerBalance());
+            });
+            found.forEach(mismatch -> log.warn("Ledger mismatch: account={}, balance={}, ledger={}",
+                    mismatch.accountId(), mismatch.recordedBalance(), mismatch.ledgerBalance()));
+            mismatchCounter.increment(found.size());
+        }
+        return found.size();
+    }
+
+    /**
+     * Plage d'ids coupée en deux jusqu'à la taille d'une tranche ; les moitiés sont volées par les
+     * threads libres du pool, ce qui équilibre les tranches denses et les tranches creuses
+     */
+    private class ChunkTask extends RecursiveAction {
+
+        private final String runId;
+        private final long fromId;
+        private final long toId;
+        private final long deadlineNanos;
+        private final AtomicLong chunks;
+        private final AtomicLong skipped;
+        private final AtomicLong mismatches;
+
+        ChunkTask(String runId, long fromId, long toId, long deadlineNanos,
+                  AtomicLong chunks, AtomicLong skipped, AtomicLong mismatches) {
+            this.runId = runId;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.deadlineNanos = deadlineNanos;
+            this.chunks = chunks;
+            this.skipped = skipped;
+            this.mismatches = mismatches;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId + 1 > chunkSize) {
+                long middle = fromId + (toId - fromId) / 2;
+                invokeAll(new ChunkTask(runId, fromId, middle, deadlineNanos, chunks, skipped, mismatches),
+                        new ChunkTask(runId, middle + 1, toId, deadlineNanos, chunks, skipped, mismatches));
+                return;
+            }
+            chunks.incrementAndGet();
+            if (System.nanoTime() - deadlineNanos > 0) {
+                skipped.incrementAndGet();
+                skippedChunks.increment();
+                return;
+            }
+            try {
+                mismatches.addAndGet(reconcileChunk(runId, fromId, toId));
+            } catch (RuntimeException e) {
+                // Une tranche en erreur n'interrompt pas le run : elle est comptée comme non vérifiée
+                log.error("Ledger reconciliation failed for accounts {}..{}", fromId, toId, e);
+                skipped.incrementAndGet();
+                skippedChunks.increment();
+            }
+        }
+    }
+}
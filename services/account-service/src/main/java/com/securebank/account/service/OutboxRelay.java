@@ -0,0 +1,94 @@
+package com.securebank.account.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.account.dto.TransactionEvent;
+import com.securebank.account.model.OutboxEvent;
+import com.securebank.account.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relais de la table outbox_events vers le topic transaction-events.
+ *
+ * Chaque passage verrouille un lot de lignes (FOR UPDATE SKIP LOCKED, plusieurs instances peuvent
+ * tourner en parallèle), envoie tous les messages sans attendre, puis attend les acks du lot et
+ * supprime les lignes acquittées. Livraison "at-least-once" : une ligne non acquittée sera renvoyée.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.ack-timeout-ms:10000}")
+    private long ackTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        // Vider la file tant que les lots sont pleins et entièrement acquittés
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == batchSize);
+    }
+
+    /**
+     * Publie un lot et retourne le nombre de messages acquittés
+     */
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, TransactionEvent>>> acks = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            acks.add(send(outboxEvent));
+        }
+
+        // Un seul délai pour tout le lot, pas un délai par message
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        List<Long> acknowledged = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                acks.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acknowledged.add(batch.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Outbox event not acknowledged, will retry: outboxId={}", batch.get(i).getId(), e);
+            }
+        }
+
+        outboxEventRepository.deleteAllByIdInBatch(acknowledged);
+        log.debug("Outbox batch relayed: read={}, acknowledged={}", batch.size(), acknowledged.size());
+        return acknowledged.size();
+    }
+
+    private CompletableFuture<SendResult<String, TransactionEvent>> send(OutboxEvent outboxEvent) {
+        try {
+            TransactionEvent event = objectMapper.readValue(outboxEvent.getPayload(), TransactionEvent.class);
+            return kafkaProducerService.publishTransactionEvent(event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
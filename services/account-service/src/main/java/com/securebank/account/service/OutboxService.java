@@ -0,0 +1,41 @@
+package com.securebank.account.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.account.dto.TransactionEvent;
+import com.securebank.account.model.OutboxEvent;
+import com.securebank.account.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Enregistre l'événement dans la table outbox_events, dans la transaction SQL de l'appelant :
+     * il ne sera publié que si cette transaction est validée.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueTransactionEvent(TransactionEvent event) {
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .eventKey(event.getTransactionId().toString())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transaction event: " + event.getTransactionId(), e);
+        }
+        log.debug("Transaction event queued in outbox: transactionId={}", event.getTransactionId());
+    }
+}
@@ -0,0 +1,132 @@
+package com.securebank.account.service;
+
+import com.securebank.account.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sous-soldes ("stripes") des comptes très sollicités en crédit (comptes marchands).
+ *
+ * Pour les comptes listés dans accounts.striping.hot-accounts, un crédit ne touche pas la ligne accounts
+ * mais l'une des N lignes de account_balance_stripes, tirée au hasard : les crédits concurrents ne
+ * se sérialisent plus sur un seul verrou de ligne. Le solde du compte est accounts.balance plus la somme
+ * des stripes. Un débit passe d'abord sur accounts.balance ; s'il ne suffit pas, les stripes sont
+ * consolidées dans accounts.balance puis le débit est retenté. Une tâche de fond consolide aussi
+ * régulièrement les stripes, pour que les débits trouvent le plus souvent le solde déjà à jour.
+ */
+@Component
+@Slf4j
+public class StripedBalanceService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> hotAccounts;
+    private final int stripeCount;
+
+    public StripedBalanceService(JdbcTemplate jdbcTemplate,
+                                 AccountRepository accountRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${accounts.striping.hot-accounts:}") Set<Long> hotAccounts,
+                                 @Value("${accounts.striping.stripes:8}") int stripeCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.hotAccounts = Set.copyOf(hotAccounts);
+        this.stripeCount = stripeCount;
+    }
+
+    /**
+     * Crée les stripes manquantes des comptes désignés (idempotent)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createStripes() {
+        for (Long accountId : hotAccounts) {
+            int created = jdbcTemplate.update(
+                    "INSERT INTO account_balance_stripes (account_id, stripe, balance) " +
+                    "SELECT a.id, s, 0 FROM accounts a CROSS JOIN generate_series(0, ? - 1) s WHERE a.id = ? " +
+                    "ON CONFLICT DO NOTHING", stripeCount, accountId);
+            if (created > 0) {
+                log.info("Created {} balance stripes for account: {}", created, accountId);
+            }
+        }
+    }
+
+    public boolean isStriped(Long accountId) {
+        return hotAccounts.contains(accountId);
+    }
+
+    /**
+     * Crédite une stripe du compte actif ; sans stripe existante (compte pas encore initialisé), crédite accounts
+     *
+     * @return nombre de lignes créditées (0 = compte inexistant ou inactif)
+     */
+    public int credit(Long accountId, BigDecimal amount) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripeCount);
+        int updated = jdbcTemplate.update(
+                "UPDATE account_balance_stripes s SET balance = s.balance + ? FROM accounts a " +
+                "WHERE a.id = s.account_id AND a.status = 'ACTIVE' AND s.account_id = ? AND s.stripe = ?",
+                amount, accountId, stripe);
+        return updated > 0 ? updated : accountRepository.credit(accountId, amount);
+    }
+
+    /**
+     * Consolide les stripes dans accounts.balance puis retente le débit conditionnel
+     *
+     * @return nombre de lignes débitées (0 = solde total insuffisant)
+     */
+    public int consolidateAndDebit(Long accountId, BigDecimal amount) {
+        consolidate(accountId);
+        return accountRepository.debitIfSufficient(accountId, amount);
+    }
+
+    /**
+     * Crédits en attente dans les stripes (à ajouter à accounts.balance pour obtenir le solde)
+     */
+    public BigDecimal pendingCredits(Long accountId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes WHERE account_id = ?",
+                BigDecimal.class, accountId);
+    }
+
+    @Scheduled(fixedDelayString = "${accounts.striping.consolidation-interval-ms:1000}")
+    public void consolidateAll() {
+        for (Long accountId : hotAccounts) {
+            transactionTemplate.executeWithoutResult(status -> consolidate(accountId));
+        }
+    }
+
+    /**
+     * Vide les stripes du compte dans accounts.balance, dans la transaction courante.
+     *
+     * Ordre des verrous commun à tous les chemins : la ligne accounts d'abord, ses stripes ensuite. Un lot
+     * ou un groupe verrouille ses comptes puis crédite une stripe ; verrouiller les stripes en premier ici
+     * les interbloquerait avec la consolidation planifiée. Un crédit concurrent attend la fin de la
+     * consolidation.
+     */
+    void consolidate(Long accountId) {
+        jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE id = ? FOR UPDATE", Long.class, accountId);
+        BigDecimal pending = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM " +
+                "(SELECT balance FROM account_balance_stripes WHERE account_id = ? FOR UPDATE) s",
+                BigDecimal.class, accountId);
+        if (pending.signum() == 0) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE account_balance_stripes SET balance = 0 WHERE account_id = ? AND balance <> 0",
+                accountId);
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + ?, updated_at = now() WHERE id = ?",
+                pending, accountId);
+        log.debug("Consolidated {} from balance stripes into account: {}", pending, accountId);
+    }
+}
@@ -0,0 +1,100 @@
+package com.securebank.account.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.dto.TransactionExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écrit un export d'historique ligne par ligne (CSV ou NDJSON) directement dans le flux de réponse.
+ * Rien n'est accumulé en mémoire au-delà du tampon d'écriture.
+ */
+public class TransactionExportWriter implements Closeable {
+
+    private static final String CSV_HEADER =
+            "id,createdAt,type,status,amount,currency,fromAccountId,toAccountId,reference,description,completedAt";
+
+    private final Writer writer;
+    private final TransactionExportFormat format;
+    private final ObjectMapper objectMapper;
+    private boolean headerWritten;
+
+    public TransactionExportWriter(OutputStream output, TransactionExportFormat format, ObjectMapper objectMapper) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(TransactionDTO transaction) throws IOException {
+        if (format == TransactionExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(transaction));
+            writer.write('\n');
+            return;
+        }
+
+        writeCsvHeaderIfNeeded();
+        writer.write(String.valueOf(transaction.getId()));
+        writer.write(',');
+        writeCsvValue(transaction.getCreatedAt());
+        writer.write(',');
+        writeCsvValue(transaction.getType());
+        writer.write(',');
+        writeCsvValue(transaction.getStatus());
+        writer.write(',');
+        writeCsvValue(transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null);
+        writer.write(',');
+        writeCsvValue(transaction.getCurrency());
+        writer.write(',');
+        writeCsvValue(transaction.getFromAccountId());
+        writer.write(',');
+        writeCsvValue(transaction.getToAccountId());
+        writer.write(',');
+        writeCsvValue(transaction.getReference());
+        writer.write(',');
+        writeCsvValue(transaction.getDescription());
+        writer.write(',');
+        writeCsvValue(transaction.getCompletedAt());
+        writer.write('\n');
+    }
+
+    /**
+     * Vide le tampon et ferme le flux sous-jacent (termine aussi le flux gzip le cas échéant)
+     */
+    @Override
+    public void close() throws IOException {
+        if (format == TransactionExportFormat.CSV) {
+            writeCsvHeaderIfNeeded();
+        }
+        writer.close();
+    }
+
+    private void writeCsvHeaderIfNeeded() throws IOException {
+        if (!headerWritten) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            headerWritten = true;
+        }
+    }
+
+    // Échappement RFC 4180 : guillemets autour des valeurs contenant , " ou un saut de ligne
+    private void writeCsvValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
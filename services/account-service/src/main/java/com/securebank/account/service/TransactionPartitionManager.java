@@ -0,0 +1,277 @@
+package com.securebank.account.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partitionnement mensuel (RANGE sur created_at) de la table transactions.
+ *
+ * Au premier passage, la table existante est renommée en transactions_legacy et rattachée telle quelle
+ * comme partition couvrant tout le passé jusqu'à la fin du mois suivant : aucune ligne n'est recopiée.
+ * Le mois de marge évite que la borne, posée dès la préparation, refuse des lignes si le mois change
+ * avant la bascule.
+ * Tout ce qui parcourt la table est fait avant, en ligne, sans bloquer lectures ni écritures : contrainte
+ * CHECK sur created_at ajoutée NOT VALID puis validée, index unique (id, created_at) construit
+ * CONCURRENTLY. La bascule, sous verrou exclusif, n'est alors faite que d'opérations de catalogue : le
+ * rattachement s'appuie sur la contrainte validée au lieu de parcourir la table. Sur une grande table, la
+ * préparation peut durer plusieurs minutes, en arrière-plan de l'application déjà démarrée.
+ * Ensuite, chaque passage crée les partitions des mois à venir et détache les partitions mensuelles
+ * plus anciennes que la rétention (renommées transactions_archive_AAAAMM, à archiver puis supprimer).
+ * Avant d'être détaché, un mois est reporté dans ledger_opening_balances, dans la même transaction :
+ * le rapprochement du grand livre (LedgerReconciliationService) reste complet sans lui.
+ * Si la partition DEFAULT a reçu des lignes d'un mois à créer (création anticipée en retard), elles
+ * sont déplacées dans la nouvelle partition, DEFAULT étant détachée le temps de la création.
+ *
+ * Les requêtes filtrant sur created_at (historique par dates, export, curseur) ne lisent
+ * que les partitions concernées.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.partitioning.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitionManager {
+
+    static final String PARENT_TABLE = "transactions";
+    static final String LEGACY_PARTITION = "transactions_legacy";
+    static final String DEFAULT_PARTITION = "transactions_default";
+    static final String LEGACY_BOUND_CHECK = "transactions_legacy_created_at_bound";
+    static final String LEGACY_KEY_INDEX = "transactions_legacy_id_created_at_key";
+
+    // Clé de pg_advisory_xact_lock : une seule instance fait la maintenance à la fois
+    private static final long MAINTENANCE_LOCK_KEY = 0x7472616e73L;
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("transactions_p(\\d{6})");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    // Index du modèle Transaction, recréés sur la table partitionnée
+    private static final List<String> INDEXES = List.of(
+            "idx_from_account_created ON transactions (from_account_id, created_at, id)",
+            "idx_to_account_created ON transactions (to_account_id, created_at, id)",
+            "idx_created_at_id ON transactions (created_at, id)",
+            "idx_reference_id ON transactions (reference_id)");
+
+    // Somme signée des transactions COMPLETED de la partition, ajoutée au solde d'ouverture de chaque compte
+    private static final String OPENING_BALANCE_SQL =
+            "INSERT INTO ledger_opening_balances (account_id, balance) " +
+            "SELECT account_id, SUM(delta) FROM (" +
+            "    SELECT to_account_id AS account_id, amount AS delta FROM %1$s " +
+            "    WHERE status = 'COMPLETED' AND type IN (" + LedgerReconciliationService.CREDIT_TYPES + ") " +
+            "    UNION ALL " +
+            "    SELECT from_account_id, -amount FROM %1$s " +
+            "    WHERE status = 'COMPLETED' AND type IN (" + LedgerReconciliationService.DEBIT_TYPES + ")" +
+            ") t WHERE account_id IS NOT NULL GROUP BY account_id " +
+            "ON CONFLICT (account_id) DO UPDATE SET balance = ledger_opening_balances.balance + EXCLUDED.balance, " +
+            "updated_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transactions.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 = ne jamais détacher
+    @Value("${transactions.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${transactions.partitioning.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now();
+        LocalDate legacyBound = currentMonth.plusMonths(2).atDay(1);
+        if (!isPartitioned()) {
+            prepareLegacyPartition(legacyBound);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, MAINTENANCE_LOCK_KEY);
+
+                if (!isPartitioned()) {
+                    convertToPartitioned(legacyBound);
+                }
+                createFuturePartitions(currentMonth.plusMonths(monthsAhead));
+                if (retentionMonths > 0) {
+                    detachExpiredPartitions(currentMonth.minusMonths(retentionMonths));
+                }
+            });
+        } catch (RuntimeException e) {
+            // La contrainte de préparation refuserait les lignes des mois suivants : elle ne doit pas survivre à un échec
+            if (!isPartitioned()) {
+                jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DROP CONSTRAINT IF EXISTS " + LEGACY_BOUND_CHECK);
+            }
+            throw e;
+        }
+    }
+
+    boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)",
+                Integer.class, PARENT_TABLE);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Préparation en ligne de la future partition, hors transaction (CONCURRENTLY l'impose) : aucune de
+     * ces instructions ne prend de verrou bloquant les lectures ou les écritures pendant le parcours
+     * de la table. Verrou consultatif de session : une seule instance prépare à la fois.
+     */
+    private void prepareLegacyPartition(LocalDate legacyBound) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + MAINTENANCE_LOCK_KEY + ")");
+                try {
+                    if (isPartitioned()) {
+                        return null;
+                    }
+                    log.info("Preparing table {} for conversion to partitions (online validation and index build)",
+                            PARENT_TABLE);
+
+                    // NOT VALID : pas de parcours sous verrou ; VALIDATE parcourt la table en laissant passer les écritures
+                    statement.execute("ALTER TABLE " + PARENT_TABLE + " DROP CONSTRAINT IF EXISTS " + LEGACY_BOUND_CHECK);
+                    statement.execute("ALTER TABLE " + PARENT_TABLE + " ADD CONSTRAINT " + LEGACY_BOUND_CHECK
+                            + " CHECK (created_at < '" + legacyBound + "') NOT VALID");
+                    statement.execute("ALTER TABLE " + PARENT_TABLE + " VALIDATE CONSTRAINT " + LEGACY_BOUND_CHECK);
+
+                    // Index de la future clé primaire (id, created_at) ; un essai interrompu laisse un index invalide
+                    statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + LEGACY_KEY_INDEX);
+                    statement.execute("CREATE UNIQUE INDEX CONCURRENTLY " + LEGACY_KEY_INDEX
+                            + " ON " + PARENT_TABLE + " (id, created_at)");
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + MAINTENANCE_LOCK_KEY + ")");
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Bascule en place, préparée par prepareLegacyPartition : uniquement des opérations de catalogue.
+     * Les index de la table partitionnée, créés vides, adoptent ceux de l'ancienne table au rattachement ;
+     * la contrainte validée prouve la borne de la partition, qui n'est donc pas vérifiée ligne à ligne.
+     */
+    private void convertToPartitioned(LocalDate legacyBound) {
+        log.info("Converting table {} to monthly range partitions", PARENT_TABLE);
+
+        jdbcTemplate.execute("ALTER TABLE transactions RENAME TO " + LEGACY_PARTITION);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " RENAME CONSTRAINT transactions_pkey TO transactions_legacy_pkey");
+        // Index (id, created_at) promu en contrainte : seul un index de contrainte peut porter la clé primaire du parent
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " ADD CONSTRAINT " + LEGACY_KEY_INDEX
+                + " UNIQUE USING INDEX " + LEGACY_KEY_INDEX);
+        // Libérer les noms d'index : ceux de l'ancienne table seront rattachés aux index partitionnés
+        for (String index : INDEXES) {
+            String name = index.substring(0, index.indexOf(' '));
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS " + name + " RENAME TO " + LEGACY_PARTITION + "_" + name);
+        }
+
+        jdbcTemplate.execute("CREATE TABLE transactions (LIKE " + LEGACY_PARTITION
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (created_at)");
+        // Copiée par LIKE, la borne de l'ancienne table n'a pas de sens sur le parent
+        jdbcTemplate.execute("ALTER TABLE transactions DROP CONSTRAINT IF EXISTS " + LEGACY_BOUND_CHECK);
+        jdbcTemplate.execute("ALTER TABLE transactions ADD PRIMARY KEY (id, created_at)");
+        for (String index : INDEXES) {
+            jdbcTemplate.execute("CREATE INDEX " + index);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + LEGACY_PARTITION
+                + " FOR VALUES FROM (MINVALUE) TO ('" + legacyBound + "')");
+        // La contrainte de partition remplace désormais la borne
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " DROP CONSTRAINT " + LEGACY_BOUND_CHECK);
+        // Filet de sécurité si la création anticipée des partitions a pris du retard
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF transactions DEFAULT");
+    }
+
+    private void createFuturePartitions(YearMonth lastMonth) {
+        YearMonth month = coveredUntil();
+        while (!month.isAfter(lastMonth)) {
+            createPartition(month);
+            month = month.plusMonths(1);
+        }
+    }
+
+    /**
+     * Crée la partition du mois. PostgreSQL la refuse tant que DEFAULT contient des lignes de ce mois :
+     * DEFAULT est alors détachée, ses lignes du mois déplacées dans la nouvelle partition, puis rattachée.
+     */
+    private void createPartition(YearMonth month) {
+        String partition = "transactions_p" + month.format(PARTITION_SUFFIX);
+        String range = "created_at >= '" + month.atDay(1) + "' AND created_at < '" + month.plusMonths(1).atDay(1) + "'";
+        String create = "CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF transactions"
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+
+        Boolean stray = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE " + range + ")", Boolean.class);
+        if (!Boolean.TRUE.equals(stray)) {
+            jdbcTemplate.execute(create);
+            log.info("Created partition {}", partition);
+            return;
+        }
+
+        // Sous le verrou exclusif du parent jusqu'au commit : aucune insertion ne voit DEFAULT absente
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + DEFAULT_PARTITION);
+        jdbcTemplate.execute(create);
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range
+                + " RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+        log.warn("Created partition {} and moved {} rows out of {}", partition, moved, DEFAULT_PARTITION);
+    }
+
+    private void detachExpiredPartitions(YearMonth oldestKeptMonth) {
+        for (String partition : listPartitions()) {
+            Matcher matcher = MONTHLY_PARTITION.matcher(partition);
+            if (matcher.matches() && YearMonth.parse(matcher.group(1), PARTITION_SUFFIX).isBefore(oldestKeptMonth)) {
+                // Plus aucune écriture sur la partition entre la somme et le détachement
+                jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+                int accounts = jdbcTemplate.update(String.format(OPENING_BALANCE_SQL, partition));
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO transactions_archive_" + matcher.group(1));
+                log.info("Detached partition {} for archiving, opening balance updated for {} accounts", partition, accounts);
+            }
+        }
+    }
+
+    /**
+     * Premier mois non couvert par une partition existante (borne haute la plus élevée)
+     */
+    private YearMonth coveredUntil() {
+        List<String> bounds = jdbcTemplate.queryForList(
+                "SELECT pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?)", String.class, PARENT_TABLE);
+
+        YearMonth coveredUntil = YearMonth.now();
+        for (String bound : bounds) {
+            Matcher matcher = UPPER_BOUND.matcher(bound);
+            if (matcher.find()) {
+                YearMonth upper = YearMonth.from(LocalDateTime.parse(matcher.group(1).replace(' ', 'T')));
+                if (upper.isAfter(coveredUntil)) {
+                    coveredUntil = upper;
+                }
+            }
+        }
+        return coveredUntil;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname", String.class, PARENT_TABLE);
+    }
+}
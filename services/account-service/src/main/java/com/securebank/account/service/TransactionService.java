@@ -1,29 +1,56 @@
 package com.securebank.account.service;
 
+import com.securebank.account.dto.BatchTransferRequest;
+import com.securebank.account.dto.BatchTransferResult;
+import com.securebank.account.dto.CursorPage;
+import com.securebank.account.dto.TransactionCursor;
 import com.securebank.account.dto.TransactionDTO;
 import com.securebank.account.dto.TransactionEvent;
 import com.securebank.account.dto.TransferRequest;
 import com.securebank.account.exception.AccountNotFoundException;
 import com.securebank.account.exception.InsufficientBalanceException;
 import com.securebank.account.exception.InvalidTransferException;
+import com.securebank.account.exception.TransferLimitExceededException;
+import com.securebank.account.limits.TransferLimitService;
+import com.securebank.account.metrics.StatementCounter;
+import com.securebank.account.metrics.TransferPhaseTimer;
+import com.securebank.account.metrics.TransferPhaseTimer.Mode;
+import com.securebank.account.metrics.TransferPhaseTimer.Phase;
 import com.securebank.account.model.Account;
 import com.securebank.account.model.Transaction;
 import com.securebank.account.repository.AccountRepository;
 import com.securebank.account.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -32,7 +59,27 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final UserTransactionFeed userTransactionFeed;
+    private final StatementCounter statementCounter;
+    private final EntityManager entityManager;
+    private final AccountCacheEvictor accountCacheEvictor;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<TransferGroupCommitter> transferGroupCommitter;
+    private final StripedBalanceService stripedBalanceService;
+    private final TransferLimitService transferLimitService;
+    private final TransferPhaseTimer transferPhaseTimer;
+
+    static final String TRANSFER_STATEMENTS_METRIC = "account.transfer.statements";
+    static final String BATCH_TRANSFER_STATEMENTS_METRIC = "account.transfer.batch.statements";
+    static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    // Taille des paquets d'un lot de virements : requêtes IN, batchs JDBC, flush du contexte de persistance
+    static final int BATCH_CHUNK_SIZE = 500;
+
+    private static final String BATCH_CREDIT_SQL =
+            "UPDATE accounts SET balance = balance + ?, updated_at = now() WHERE id = ? AND status = 'ACTIVE'";
 
     /**
      * ========================================================================
@@ -44,23 +91,64 @@ public class TransactionService {
      * 2. Transaction TRANSFER_IN pour le compte récepteur (+100€)
      * 
      * Les 2 transactions partagent le même referenceId pour traçabilité.
+     * Elles sont insérées directement à l'état COMPLETED, en un seul batch,
+     * après le débit/crédit des soldes.
+     *
+     * En mode group commit (transactions.group-commit.enabled), le virement est mis en file et appliqué
+     * avec les autres virements du même compte source en une seule transaction SQL (voir transferGroup).
+     * Sinon il s'exécute dans sa propre transaction, ouverte ici et non par @Transactional : un appelant
+     * en attente dans la file ne doit pas retenir de connexion.
+     *
+     * Chaque phase du virement unitaire est chronométrée (voir TransferPhaseTimer).
      */
-    @Transactional
     public TransactionDTO transfer(Long userId, TransferRequest request) {
+        TransferGroupCommitter groupCommitter = transferGroupCommitter.getIfAvailable();
+        // Appelé dans une transaction ouverte (ex. clé d'idempotence) : le virement doit en faire partie
+        if (groupCommitter != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return groupCommitter.transfer(userId, request);
+        }
+        return transactionTemplate.execute(status -> executeTransfer(userId, request));
+    }
+
+    private TransactionDTO executeTransfer(Long userId, TransferRequest request) {
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.SINGLE);
+        try {
+            return executeTransfer(userId, request, phases);
+        } catch (RuntimeException e) {
+            phases.failed(e);
+            throw e;
+        }
+    }
+
+    private TransactionDTO executeTransfer(Long userId, TransferRequest request, TransferPhaseTimer.Recording phases) {
         log.info("Processing transfer: from={}, to={}, amount={}", 
                 request.getFromAccountId(), request.getToAccountNumber(), request.getAmount());
+        int statementMark = statementCounter.mark();
 
         // Validations métier
+        phases.begin(Phase.VALIDATION);
         validateTransferRequest(request);
 
-        // Récupérer les comptes avec locks pessimistes (pour éviter race conditions)
-        Account fromAccount = accountRepository.findByIdWithLock(request.getFromAccountId())
+        // Résoudre l'id du compte destinataire (sans charger l'entité)
+        phases.begin(Phase.DESTINATION_LOOKUP);
+        Long toAccountId = accountRepository.findIdByAccountNumber(request.getToAccountNumber())
+                .orElseThrow(() -> new AccountNotFoundException("Compte destinataire introuvable"));
+
+        if (toAccountId.equals(request.getFromAccountId())) {
+            throw new InvalidTransferException("Cannot transfer to the same account");
+        }
+
+        // Charger les 2 comptes (sans verrou) pour les contrôles métier
+        List<Account> accounts = accountRepository.findAllById(List.of(request.getFromAccountId(), toAccountId));
+
+        Account fromAccount = findAccount(accounts, request.getFromAccountId())
                 .orElseThrow(() -> new AccountNotFoundException("Source account not found: " + request.getFromAccountId()));
 
-        Account toAccount = accountRepository.findByAccountNumber(request.getToAccountNumber())
+        Account toAccount = findAccount(accounts, toAccountId)
                 .orElseThrow(() -> new AccountNotFoundException("Compte destinataire introuvable"));
 
         // Vérifier que le compte source appartient à l'utilisateur
+        phases.begin(Phase.VALIDATION);
         if (!fromAccount.getUserId().equals(userId)) {
             throw new InvalidTransferException("Unauthorized: Account does not belong to user");
         }
@@ -74,101 +162,216 @@ public class TransactionService {
             throw new InvalidTransferException("Destination account is not active");
         }
 
-        // Vérifier le solde suffisant
-        if (fromAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException(
-                    String.format("Insufficient balance: available=%.2f, required=%.2f", 
-                            fromAccount.getBalance(), request.getAmount()));
-        }
+        // Plafonds du type de compte (unitaire, journalier, mensuel, par minute), évalués en mémoire
+        transferLimitService.reserve(fromAccount, request.getAmount(), 1);
+
+        // ===== EFFECTUER LE TRANSFERT =====
+        // Débit conditionnel + crédit atomiques : c'est le débit qui tranche le solde insuffisant
+        applyLedgerUpdates(fromAccount, toAccount, request.getAmount(), phases);
 
         // ===== GÉNÉRATION DES RÉFÉRENCES =====
+        phases.begin(Phase.LEDGER_INSERTS);
         String reference = generateReference();           // Ex: "TXN-A1B2C3D4"
         String referenceId = generateTransferReferenceId(); // Ex: "TRF-550e8400-e29b"
         LocalDateTime now = LocalDateTime.now();
 
         // ===== TRANSACTION 1 : SORTIE (TRANSFER_OUT) =====
-        Transaction outTransaction = Transaction.builder()
-                .fromAccountId(fromAccount.getId())
-                .toAccountId(toAccount.getId())
-                .amount(request.getAmount())
-                .currency(fromAccount.getCurrency())
-                .type(Transaction.TransactionType.TRANSFER_OUT)
-                .status(Transaction.TransactionStatus.PENDING)
-                .description(String.format("Virement vers %s - %s", 
-                        maskAccountNumber(toAccount.getAccountNumber()), 
-                        request.getDescription()))
-                .reference(reference + "-OUT")
-                .referenceId(referenceId)  // Même referenceId pour les 2 transactions
-                .createdAt(now)
-                .build();
+        Transaction outTransaction = buildOutTransaction(fromAccount, toAccount, request.getAmount(),
+                request.getDescription(), reference, referenceId, now);
 
         // ===== TRANSACTION 2 : ENTRÉE (TRANSFER_IN) =====
-        Transaction inTransaction = Transaction.builder()
-                .fromAccountId(fromAccount.getId())
-                .toAccountId(toAccount.getId())
-                .amount(request.getAmount())
-                .currency(toAccount.getCurrency())
-                .type(Transaction.TransactionType.TRANSFER_IN)
-                .status(Transaction.TransactionStatus.PENDING)
-                .description(String.format("Virement depuis %s - %s", 
-                        maskAccountNumber(fromAccount.getAccountNumber()), 
-                        request.getDescription()))
-                .reference(reference + "-IN")
-                .referenceId(referenceId)  // Même referenceId
-                .createdAt(now)
-                .build();
-
-        // Sauvegarder les 2 transactions (statut PENDING)
-        outTransaction = transactionRepository.save(outTransaction);
-        inTransaction = transactionRepository.save(inTransaction);
+        Transaction inTransaction = buildInTransaction(fromAccount, toAccount, request.getAmount(),
+                request.getDescription(), reference, referenceId, now);
+
+        // Les soldes sont déjà débités/crédités dans cette transaction SQL : les 2 lignes sont
+        // écrites directement à l'état COMPLETED (ids issus d'une séquence, attribués sans insert)
+        transactionRepository.saveAll(List.of(outTransaction, inTransaction));
+
+        // Événements Kafka déposés dans l'outbox, dans la même transaction SQL
+        phases.begin(Phase.EVENT_PUBLICATION);
+        publishTransactionEvent(outTransaction, userId);
+        publishTransactionEvent(inTransaction, toAccount.getUserId());
+
+        // Un seul flush : un batch JDBC pour les transactions, un pour l'outbox
+        phases.begin(Phase.LEDGER_INSERTS);
+        transactionRepository.flush();
+        phases.end();
+        statementCounter.record(TRANSFER_STATEMENTS_METRIC, statementMark);
+
+        // Soldes modifiés : caches des 2 comptes et des listes de comptes des 2 titulaires
+        accountCacheEvictor.evictAfterCommit(
+                List.of(fromAccount.getId(), toAccount.getId()),
+                Set.of(fromAccount.getUserId(), toAccount.getUserId()));
+
+        log.info("Transfer completed successfully: referenceId={}, out={}, in={}", 
+                referenceId, outTransaction.getId(), inTransaction.getId());
+
+        // Retourner la transaction de sortie (vue de l'émetteur)
+        return mapToDTO(outTransaction, fromAccount.getId());
+    }
 
+    /**
+     * Lot de virements depuis un même compte source (paie, versements groupés).
+     *
+     * Le compte source et les destinataires sont verrouillés une seule fois, par id croissant, et le solde
+     * source contrôlé une seule fois, sur le total des éléments valides, par un unique débit conditionnel.
+     * Un élément invalide (destinataire inconnu ou inactif, plafond dépassé) est rejeté seul ; un solde
+     * insuffisant pour le total rejette le lot.
+     * Le lot compte pour un seul virement dans la limite par minute : toutes ses lignes partagent un même
+     * referenceId, ce qui permet à TransferLimitService de le compter de même au redémarrage. Ses phases
+     * sont chronométrées comme une seule mesure (mode batch, voir TransferPhaseTimer).
+     */
+    @Transactional
+    public BatchTransferResult transferBatch(Long userId, BatchTransferRequest request) {
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.BATCH);
         try {
-            // ===== EFFECTUER LE TRANSFERT =====
-            fromAccount.setBalance(fromAccount.getBalance().subtract(request.getAmount()));
-            toAccount.setBalance(toAccount.getBalance().add(request.getAmount()));
+            return executeBatch(userId, request, phases);
+        } catch (RuntimeException e) {
+            phases.failed(e);
+            throw e;
+        }
+    }
 
-            accountRepository.save(fromAccount);
-            accountRepository.save(toAccount);
+    private BatchTransferResult executeBatch(Long userId, BatchTransferRequest request,
+                                             TransferPhaseTimer.Recording phases) {
+        List<BatchTransferRequest.Item> items = request.getTransfers();
+        log.info("Processing batch transfer: from={}, items={}", request.getFromAccountId(), items.size());
+        int statementMark = statementCounter.mark();
 
-            // ===== MARQUER LES 2 TRANSACTIONS COMME COMPLÉTÉES =====
-            LocalDateTime completedAt = LocalDateTime.now();
-            
-            outTransaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-            outTransaction.setCompletedAt(completedAt);
-            outTransaction = transactionRepository.save(outTransaction);
+        // Verrous du compte source et des destinataires, pris une seule fois pour tout le lot
+        Map<String, Account> destinations = new HashMap<>();
+        Account fromAccount = lockTransferAccounts(request.getFromAccountId(), items, destinations, phases);
 
-            inTransaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-            inTransaction.setCompletedAt(completedAt);
-            inTransaction = transactionRepository.save(inTransaction);
+        phases.begin(Phase.VALIDATION);
+        if (!fromAccount.getUserId().equals(userId)) {
+            throw new InvalidTransferException("Unauthorized: Account does not belong to user");
+        }
 
-            log.info("Transfer completed successfully: referenceId={}, out={}, in={}", 
-                    referenceId, outTransaction.getId(), inTransaction.getId());
+        if (fromAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw new InvalidTransferException("Source account is not active");
+        }
 
-            // Publier les événements Kafka pour les 2 transactions
-            publishTransactionEvent(outTransaction, userId);
-            publishTransactionEvent(inTransaction, toAccount.getUserId());
+        transferLimitService.reserve(fromAccount, BigDecimal.ZERO, 1);
+
+        // Contrôles par élément
+        String[] errors = new String[items.size()];
+        BitSet accepted = new BitSet(items.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferRequest.Item item = items.get(i);
+            errors[i] = validateBatchItem(fromAccount, destinations.get(item.getToAccountNumber()), item.getAmount());
+            if (errors[i] == null) {
+                errors[i] = reserveBatchItem(fromAccount, item.getAmount());
+            }
+            if (errors[i] == null) {
+                accepted.set(i);
+                total = total.add(item.getAmount());
+            }
+        }
 
-            // Retourner la transaction de sortie (vue de l'émetteur)
-            return mapToDTO(outTransaction, fromAccount.getId());
+        TransactionDTO[] completed = applySourceTransfers(fromAccount, items, destinations, accepted, total,
+                generateTransferReferenceId(), phases);
+        statementCounter.record(BATCH_TRANSFER_STATEMENTS_METRIC, statementMark);
+
+        List<BatchTransferResult.ItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferResult.ItemResult.ItemResultBuilder result = BatchTransferResult.ItemResult.builder()
+                    .index(i)
+                    .toAccountNumber(items.get(i).getToAccountNumber());
+            if (completed[i] != null) {
+                result.status(BatchTransferResult.ItemStatus.COMPLETED)
+                        .transactionId(completed[i].getId())
+                        .reference(completed[i].getReference());
+            } else {
+                result.status(BatchTransferResult.ItemStatus.REJECTED).error(errors[i]);
+            }
+            results.add(result.build());
+        }
 
-        } catch (Exception e) {
-            // En cas d'erreur, marquer les 2 transactions comme échouées
-            outTransaction.setStatus(Transaction.TransactionStatus.FAILED);
-            inTransaction.setStatus(Transaction.TransactionStatus.FAILED);
-            
-            transactionRepository.save(outTransaction);
-            transactionRepository.save(inTransaction);
+        log.info("Batch transfer completed: from={}, completed={}, rejected={}, total={}",
+                fromAccount.getId(), accepted.cardinality(), items.size() - accepted.cardinality(), total);
 
-            log.error("Transfer failed: referenceId={}", referenceId, e);
-            throw new RuntimeException("Transfer failed: " + e.getMessage(), e);
+        return BatchTransferResult.builder()
+                .fromAccountId(fromAccount.getId())
+                .completed(accepted.cardinality())
+                .rejected(items.size() - accepted.cardinality())
+                .totalAmount(total)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Mode group commit : applique en une seule transaction SQL des virements unitaires d'un même compte
+     * source, mis en file par TransferGroupCommitter. Chaque virement passe les contrôles de transfer() ;
+     * le solde est suivi en mémoire sous le verrou du compte source, et un virement qu'il ne couvre plus
+     * est rejeté seul, sans effet en base.
+     *
+     * Les phases du groupe sont chronométrées comme une seule mesure (mode group, voir TransferPhaseTimer).
+     *
+     * @return pour chaque virement, dans l'ordre, la transaction TRANSFER_OUT ou l'exception qui le rejette
+     */
+    @Transactional
+    public List<TransferGroupCommitter.Outcome> transferGroup(Long fromAccountId,
+                                                              List<TransferGroupCommitter.Submission> submissions) {
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.GROUP);
+        try {
+            return executeGroup(fromAccountId, submissions, phases);
+        } catch (RuntimeException e) {
+            phases.failed(e);
+            throw e;
         }
     }
 
+    private List<TransferGroupCommitter.Outcome> executeGroup(Long fromAccountId,
+                                                              List<TransferGroupCommitter.Submission> submissions,
+                                                              TransferPhaseTimer.Recording phases) {
+        List<BatchTransferRequest.Item> items = submissions.stream()
+                .map(submission -> BatchTransferRequest.Item.builder()
+                        .toAccountNumber(submission.request().getToAccountNumber())
+                        .amount(submission.request().getAmount())
+                        .description(submission.request().getDescription())
+                        .build())
+                .collect(Collectors.toList());
+        Map<String, Account> destinations = new HashMap<>();
+        Account fromAccount = lockTransferAccounts(fromAccountId, items, destinations, phases);
+
+        phases.begin(Phase.VALIDATION);
+        RuntimeException[] errors = new RuntimeException[submissions.size()];
+        BitSet accepted = new BitSet(submissions.size());
+        BigDecimal available = stripedBalanceService.isStriped(fromAccountId)
+                ? fromAccount.getBalance().add(stripedBalanceService.pendingCredits(fromAccountId))
+                : fromAccount.getBalance();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < submissions.size(); i++) {
+            TransferGroupCommitter.Submission submission = submissions.get(i);
+            try {
+                checkGroupedTransfer(fromAccount, destinations.get(items.get(i).getToAccountNumber()),
+                        submission.userId(), submission.request(), available);
+                accepted.set(i);
+                available = available.subtract(submission.request().getAmount());
+                total = total.add(submission.request().getAmount());
+            } catch (RuntimeException e) {
+                errors[i] = e;
+            }
+        }
+
+        TransactionDTO[] completed = applySourceTransfers(fromAccount, items, destinations, accepted, total, null, phases);
+
+        List<TransferGroupCommitter.Outcome> outcomes = new ArrayList<>(submissions.size());
+        for (int i = 0; i < submissions.size(); i++) {
+            outcomes.add(new TransferGroupCommitter.Outcome(completed[i], errors[i]));
+        }
+        log.debug("Transfer group applied: from={}, size={}, accepted={}",
+                fromAccountId, submissions.size(), accepted.cardinality());
+        return outcomes;
+    }
+
     /**
      * Récupérer l'historique des transactions d'un compte
      * Plus besoin de logique complexe dans mapToDTO car les transactions
      * sont déjà créées avec le bon type (TRANSFER_IN ou TRANSFER_OUT)
      */
+    @Transactional(readOnly = true)
     public List<TransactionDTO> getAccountTransactions(Long accountId, Long userId) {
         log.info("Fetching transactions for account: {}", accountId);
 
@@ -180,39 +383,43 @@ public class TransactionService {
             throw new InvalidTransferException("Unauthorized: Account does not belong to user");
         }
 
-        // Récupérer toutes les transactions où le compte est émetteur OU récepteur
-        List<Transaction> transactions = transactionRepository
-                .findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(accountId, accountId);
-
-        return transactions.stream()
-                .map(t -> mapToDTO(t, accountId))
-                .collect(Collectors.toList());
+        // Toutes les transactions où le compte est émetteur OU récepteur, lues directement en DTO
+        return transactionRepository.findAccountTransactionDTOs(accountId);
     }
 
     /**
      * Récupérer toutes les transactions de l'utilisateur (tous ses comptes)
+     * en une seule requête account_id IN (...), triée par la base
      */
+    @Transactional(readOnly = true)
     public List<TransactionDTO> getUserTransactions(Long userId) {
-        List<Account> userAccounts = accountRepository.findByUserId(userId);
-        
-        return userAccounts.stream()
-                .flatMap(account -> transactionRepository
-                        .findByFromAccountIdOrToAccountId(account.getId(), account.getId())
-                        .stream()
-                        .map(t -> mapToDTO(t, account.getId())))
-                .sorted(Comparator.comparing(TransactionDTO::getCreatedAt).reversed())
+        Set<Long> accountIds = findUserAccountIds(userId);
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+
+        return transactionRepository.findByAccountIds(accountIds).stream()
+                .map(t -> mapToDTO(t, perspectiveAccountId(t, accountIds)))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Historique global paginé : seule la fenêtre demandée est lue, une requête par lot pour tous les comptes
+     */
+    @Transactional(readOnly = true)
     public Page<TransactionDTO> getUserTransactionsPaginated(Long userId, Pageable pageable) {
-        List<TransactionDTO> allTransactions = getUserTransactions(userId);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), allTransactions.size());
-        
-        List<TransactionDTO> pageContent = allTransactions.subList(start, end);
-        return new PageImpl<>(pageContent, pageable, allTransactions.size());
+        Set<Long> accountIds = findUserAccountIds(userId);
+        if (accountIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<TransactionDTO> pageContent = userTransactionFeed
+                .window(accountIds, TransactionCursor.FIRST, pageable.getOffset(), pageable.getPageSize());
+
+        return new PageImpl<>(pageContent, pageable, transactionRepository.countByAccountIds(accountIds));
     }
 
+    @Transactional(readOnly = true)
     public Page<TransactionDTO> getAccountTransactionsPaginated(Long accountId, Long userId, Pageable pageable) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId));
@@ -221,9 +428,126 @@ public class TransactionService {
             throw new InvalidTransferException("Unauthorized: Account does not belong to user");
         }
 
-        return transactionRepository
-                .findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(accountId, accountId, pageable)
-                .map(t -> mapToDTO(t, accountId));
+        List<TransactionDTO> pageContent = transactionRepository
+                .findAccountTransactionsPage(accountId, pageable.getPageSize(), pageable.getOffset()).stream()
+                .map(t -> mapToDTO(t, accountId))
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(pageContent, pageable, transactionRepository.countAccountTransactions(accountId));
+    }
+
+    /**
+     * Historique d'un compte paginé par curseur (keyset) : seek sur (createdAt, id) au lieu d'un OFFSET,
+     * temps de réponse constant quelle que soit la profondeur de la page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDTO> getAccountTransactionsAfter(Long accountId, Long userId, String after, int limit) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId));
+
+        if (!account.getUserId().equals(userId)) {
+            throw new InvalidTransferException("Unauthorized: Account does not belong to user");
+        }
+
+        TransactionCursor cursor = TransactionCursor.parse(after);
+        int pageSize = clampPageSize(limit);
+
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante
+        List<Transaction> transactions = transactionRepository.findAccountTransactionsBefore(
+                accountId, cursor.createdAt(), cursor.id(), pageSize + 1);
+
+        return toCursorPage(transactions.stream()
+                .map(t -> mapToDTO(t, accountId))
+                .collect(Collectors.toList()), pageSize);
+    }
+
+    /**
+     * Historique global de l'utilisateur paginé par curseur, tous comptes confondus
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDTO> getUserTransactionsAfter(Long userId, String after, int limit) {
+        Set<Long> accountIds = findUserAccountIds(userId);
+
+        TransactionCursor cursor = TransactionCursor.parse(after);
+        int pageSize = clampPageSize(limit);
+
+        if (accountIds.isEmpty()) {
+            return CursorPage.<TransactionDTO>builder().content(List.of()).hasNext(false).build();
+        }
+
+        List<TransactionDTO> transactions = userTransactionFeed.window(accountIds, cursor, 0, pageSize + 1);
+
+        return toCursorPage(transactions, pageSize);
+    }
+
+    /**
+     * Vérifie que le compte existe et appartient à l'utilisateur.
+     * Appelé avant d'ouvrir un export, tant que la réponse peut encore porter un code d'erreur.
+     */
+    public void checkAccountAccess(Long accountId, Long userId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId));
+
+        if (!account.getUserId().equals(userId)) {
+            throw new InvalidTransferException("Unauthorized: Account does not belong to user");
+        }
+    }
+
+    /**
+     * Export de l'historique d'un compte, du plus ancien au plus récent, écrit ligne par ligne.
+     * Les lignes arrivent par lots du curseur serveur et sont détachées une fois écrites :
+     * la mémoire consommée ne dépend pas du nombre de transactions exportées.
+     *
+     * @param from premier jour inclus (null = depuis l'origine)
+     * @param to   dernier jour inclus (null = jusqu'à aujourd'hui compris)
+     * @return nombre de transactions exportées
+     */
+    @Transactional(readOnly = true)
+    public long exportAccountTransactions(Long accountId, LocalDate from, LocalDate to,
+                                          TransactionExportWriter writer) throws IOException {
+        LocalDateTime startDate = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime endDate = (to != null ? to : LocalDate.now()).plusDays(1).atStartOfDay();
+
+        long exported = 0;
+        try (Stream<Transaction> transactions =
+                     transactionRepository.streamAccountTransactions(accountId, startDate, endDate)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                writer.write(mapToDTO(transaction, accountId));
+                entityManager.detach(transaction);
+                exported++;
+            }
+        }
+
+        log.info("Exported {} transactions for account: {}", exported, accountId);
+        return exported;
+    }
+
+    private Set<Long> findUserAccountIds(Long userId) {
+        return new HashSet<>(accountRepository.findIdsByUserId(userId));
+    }
+
+    // Point de vue : le compte émetteur s'il appartient à l'utilisateur, sinon le récepteur
+    private Long perspectiveAccountId(Transaction transaction, Set<Long> accountIds) {
+        return accountIds.contains(transaction.getFromAccountId())
+                ? transaction.getFromAccountId()
+                : transaction.getToAccountId();
+    }
+
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private CursorPage<TransactionDTO> toCursorPage(List<TransactionDTO> transactions, int pageSize) {
+        boolean hasNext = transactions.size() > pageSize;
+        List<TransactionDTO> content = hasNext ? transactions.subList(0, pageSize) : transactions;
+
+        return CursorPage.<TransactionDTO>builder()
+                .content(content)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? TransactionCursor.of(content.get(content.size() - 1)).toString() : null)
+                .build();
     }
 
     /**
@@ -237,23 +561,340 @@ public class TransactionService {
         if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
             throw new InvalidTransferException("Amount must be greater than zero");
         }
+    }
+
+    /**
+     * Applique le débit et le crédit par UPDATE atomiques, dans l'ordre des ids des comptes.
+     * Les verrous de ligne sont pris par les UPDATE eux-mêmes (et non plus par un SELECT FOR UPDATE
+     * suivi d'un calcul en Java) : l'ordre fixe garde les virements croisés A→B / B→A sans deadlock.
+     * Le débit conditionnel, qui attend le verrou du compte source, est chronométré à part du crédit
+     * (phase SOURCE_DEBIT). Un destinataire à sous-soldes est crédité après le débit : les stripes se
+     * verrouillent toujours après les lignes accounts (voir StripedBalanceService.consolidate).
+     */
+    private void applyLedgerUpdates(Account fromAccount, Account toAccount, BigDecimal amount,
+                                    TransferPhaseTimer.Recording phases) {
+        if (fromAccount.getId() < toAccount.getId() || stripedBalanceService.isStriped(toAccount.getId())) {
+            phases.begin(Phase.SOURCE_DEBIT);
+            debit(fromAccount, amount);
+            phases.begin(Phase.BALANCE_UPDATES);
+            credit(toAccount.getId(), amount);
+        } else {
+            phases.begin(Phase.BALANCE_UPDATES);
+            credit(toAccount.getId(), amount);
+            phases.begin(Phase.SOURCE_DEBIT);
+            debit(fromAccount, amount);
+        }
+    }
+
+    private void debit(Account fromAccount, BigDecimal amount) {
+        int debited = accountRepository.debitIfSufficient(fromAccount.getId(), amount);
+        // Compte à sous-soldes : les crédits encore dans les stripes sont consolidés, puis le débit retenté
+        if (debited == 0 && stripedBalanceService.isStriped(fromAccount.getId())) {
+            debited = stripedBalanceService.consolidateAndDebit(fromAccount.getId(), amount);
+        }
+        // Le solde lu avant le débit n'est pas celui que l'UPDATE a refusé : seul le montant est rapporté
+        if (debited == 0) {
+            throw new InsufficientBalanceException(
+                    String.format("Insufficient balance: required=%.2f", amount));
+        }
+    }
+
+    // Le statut lu avant le virement a pu changer : c'est le crédit conditionnel qui tranche
+    private void credit(Long accountId, BigDecimal amount) {
+        int credited = stripedBalanceService.isStriped(accountId)
+                ? stripedBalanceService.credit(accountId, amount)
+                : accountRepository.credit(accountId, amount);
+        if (credited == 0) {
+            throw new InvalidTransferException("Destination account is not active");
+        }
+    }
+
+    /**
+     * Verrouille le compte source et les destinataires du lot, tous par id croissant : même ordre que
+     * applyLedgerUpdates, un lot et un virement unitaire croisés (ou deux lots croisés) ne peuvent donc
+     * pas s'interbloquer. Les numéros sont d'abord résolus en ids sans verrou, puis les comptes lus sous
+     * verrou par paquets de BATCH_CHUNK_SIZE ids croissants.
+     *
+     * @param destinations reçoit les comptes existants par numéro de compte
+     * @return le compte source
+     */
+    private Account lockTransferAccounts(Long fromAccountId, List<BatchTransferRequest.Item> items,
+                                         Map<String, Account> destinations, TransferPhaseTimer.Recording phases) {
+        phases.begin(Phase.DESTINATION_LOOKUP);
+        List<String> accountNumbers = items.stream()
+                .map(BatchTransferRequest.Item::getToAccountNumber)
+                .distinct()
+                .collect(Collectors.toList());
+
+        TreeSet<Long> accountIds = new TreeSet<>();
+        accountIds.add(fromAccountId);
+        for (int from = 0; from < accountNumbers.size(); from += BATCH_CHUNK_SIZE) {
+            accountIds.addAll(accountRepository.findIdsByAccountNumberIn(
+                    accountNumbers.subList(from, Math.min(from + BATCH_CHUNK_SIZE, accountNumbers.size()))));
+        }
+
+        phases.begin(Phase.ACCOUNT_LOCKS);
+        List<Long> lockOrder = new ArrayList<>(accountIds);
+        Account fromAccount = null;
+        for (int from = 0; from < lockOrder.size(); from += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = lockOrder.subList(from, Math.min(from + BATCH_CHUNK_SIZE, lockOrder.size()));
+            for (Account account : accountRepository.findAllByIdInWithLock(chunk)) {
+                if (account.getId().equals(fromAccountId)) {
+                    fromAccount = account;
+                }
+                destinations.put(account.getAccountNumber(), account);
+            }
+        }
+        if (fromAccount == null) {
+            throw new AccountNotFoundException("Source account not found: " + fromAccountId);
+        }
+        return fromAccount;
+    }
+
+    /**
+     * Motif de rejet d'un élément du lot, ou null s'il est valide
+     */
+    private String validateBatchItem(Account fromAccount, Account toAccount, BigDecimal amount) {
+        if (toAccount == null) {
+            return "Compte destinataire introuvable";
+        }
+        if (toAccount.getId().equals(fromAccount.getId())) {
+            return "Cannot transfer to the same account";
+        }
+        if (toAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "Destination account is not active";
+        }
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than zero";
+        }
+        return null;
+    }
+
+    /**
+     * Réserve le montant d'un élément valide dans les plafonds du compte source, ou renvoie le motif de rejet
+     */
+    private String reserveBatchItem(Account fromAccount, BigDecimal amount) {
+        try {
+            transferLimitService.reserve(fromAccount, amount, 0);
+            return null;
+        } catch (TransferLimitExceededException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Contrôles de transfer(), dans le même ordre, pour un virement du mode group commit
+     */
+    private void checkGroupedTransfer(Account fromAccount, Account toAccount, Long userId,
+                                      TransferRequest request, BigDecimal available) {
+        validateTransferRequest(request);
+
+        if (toAccount == null) {
+            throw new AccountNotFoundException("Compte destinataire introuvable");
+        }
+        if (toAccount.getId().equals(fromAccount.getId())) {
+            throw new InvalidTransferException("Cannot transfer to the same account");
+        }
+        if (!fromAccount.getUserId().equals(userId)) {
+            throw new InvalidTransferException("Unauthorized: Account does not belong to user");
+        }
+        if (fromAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw new InvalidTransferException("Source account is not active");
+        }
+        if (toAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw new InvalidTransferException("Destination account is not active");
+        }
+        if (available.compareTo(request.getAmount()) < 0) {
+            throw new InsufficientBalanceException(
+                    String.format("Insufficient balance: available=%.2f, required=%.2f",
+                            available, request.getAmount()));
+        }
+        transferLimitService.reserve(fromAccount, request.getAmount(), 1);
+    }
+
+    /**
+     * Applique les virements acceptés, compte source et destinataires déjà verrouillés (lot et group commit).
+     *
+     * Un seul débit conditionnel du total, les crédits regroupés par destinataire en un batch JDBC,
+     * puis les lignes du grand livre et de l'outbox par paquets de BATCH_CHUNK_SIZE éléments, flushés
+     * en batch et détachés : la mémoire ne dépend pas du nombre de virements. Les crédits passent par
+     * JdbcTemplate, hors du StatementInspector : ils sont ajoutés explicitement au StatementCounter.
+     *
+     * @param batchReferenceId referenceId commun à tout le lot, null pour un referenceId par virement (group commit)
+     * @return la transaction TRANSFER_OUT de chaque élément accepté, null pour les autres
+     */
+    private TransactionDTO[] applySourceTransfers(Account fromAccount, List<BatchTransferRequest.Item> items,
+                                                  Map<String, Account> destinations, BitSet accepted,
+                                                  BigDecimal total, String batchReferenceId,
+                                                  TransferPhaseTimer.Recording phases) {
+        TransactionDTO[] completed = new TransactionDTO[items.size()];
+        if (accepted.isEmpty()) {
+            phases.end();
+            return completed;
+        }
 
-        if (request.getAmount().compareTo(new BigDecimal("10000")) > 0) {
-            throw new InvalidTransferException("Transfer amount exceeds maximum limit of 10000 EUR");
+        // Un seul débit du total : c'est lui qui tranche le solde insuffisant
+        phases.begin(Phase.SOURCE_DEBIT);
+        debit(fromAccount, total);
+
+        // Crédits cumulés par destinataire, triés par id
+        phases.begin(Phase.BALANCE_UPDATES);
+        Map<Long, BigDecimal> credits = new TreeMap<>();
+        Set<Long> userIds = new HashSet<>();
+        userIds.add(fromAccount.getUserId());
+        for (int i = accepted.nextSetBit(0); i >= 0; i = accepted.nextSetBit(i + 1)) {
+            Account toAccount = destinations.get(items.get(i).getToAccountNumber());
+            credits.merge(toAccount.getId(), items.get(i).getAmount(), BigDecimal::add);
+            userIds.add(toAccount.getUserId());
+        }
+        // Comptes à sous-soldes crédités sur une stripe, les autres en un batch JDBC
+        List<Map.Entry<Long, BigDecimal>> rowCredits = new ArrayList<>(credits.size());
+        for (Map.Entry<Long, BigDecimal> credit : credits.entrySet()) {
+            if (stripedBalanceService.isStriped(credit.getKey())) {
+                if (stripedBalanceService.credit(credit.getKey(), credit.getValue()) == 0) {
+                    throw new InvalidTransferException("Destination account is not active");
+                }
+            } else {
+                rowCredits.add(credit);
+            }
+        }
+        int[][] credited = jdbcTemplate.batchUpdate(BATCH_CREDIT_SQL, rowCredits, BATCH_CHUNK_SIZE, (statement, credit) -> {
+            statement.setBigDecimal(1, credit.getValue());
+            statement.setLong(2, credit.getKey());
+        });
+        // Une instruction par stripe créditée, une par paquet du batch JDBC
+        statementCounter.count(credits.size() - rowCredits.size() + credited.length);
+        // Destinataires verrouillés et contrôlés plus haut : un crédit refusé annule tout le lot
+        for (int[] counts : credited) {
+            for (int count : counts) {
+                if (count == 0) {
+                    throw new InvalidTransferException("Destination account is not active");
+                }
+            }
+        }
+
+        // Grand livre et outbox par paquets
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        for (int i = accepted.nextSetBit(0); i >= 0; i = accepted.nextSetBit(i + 1)) {
+            chunk.add(i);
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                writeBatchChunk(fromAccount, items, destinations, chunk, completed, now, batchReferenceId, phases);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeBatchChunk(fromAccount, items, destinations, chunk, completed, now, batchReferenceId, phases);
+        }
+        phases.end();
+
+        Set<Long> accountIds = new HashSet<>(credits.keySet());
+        accountIds.add(fromAccount.getId());
+        accountCacheEvictor.evictAfterCommit(accountIds, userIds);
+
+        return completed;
+    }
+
+    /**
+     * Écrit les lignes OUT/IN et les événements d'un paquet d'éléments acceptés, en un flush, puis les détache
+     */
+    private void writeBatchChunk(Account fromAccount, List<BatchTransferRequest.Item> items,
+                                 Map<String, Account> destinations, List<Integer> chunk,
+                                 TransactionDTO[] completed, LocalDateTime now, String batchReferenceId,
+                                 TransferPhaseTimer.Recording phases) {
+        phases.begin(Phase.LEDGER_INSERTS);
+        List<Transaction> transactions = new ArrayList<>(chunk.size() * 2);
+        for (int index : chunk) {
+            BatchTransferRequest.Item item = items.get(index);
+            Account toAccount = destinations.get(item.getToAccountNumber());
+            String reference = generateReference();
+            String referenceId = batchReferenceId != null ? batchReferenceId : generateTransferReferenceId();
+            transactions.add(buildOutTransaction(fromAccount, toAccount, item.getAmount(),
+                    item.getDescription(), reference, referenceId, now));
+            transactions.add(buildInTransaction(fromAccount, toAccount, item.getAmount(),
+                    item.getDescription(), reference, referenceId, now));
+        }
+        transactionRepository.saveAll(transactions);
+
+        phases.begin(Phase.EVENT_PUBLICATION);
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = chunk.get(i);
+            Transaction outTransaction = transactions.get(2 * i);
+            Transaction inTransaction = transactions.get(2 * i + 1);
+            publishTransactionEvent(outTransaction, fromAccount.getUserId());
+            publishTransactionEvent(inTransaction, destinations.get(items.get(index).getToAccountNumber()).getUserId());
+            completed[index] = mapToDTO(outTransaction, fromAccount.getId());
         }
+
+        // Un batch JDBC pour les transactions, un pour l'outbox, puis contexte de persistance vidé
+        phases.begin(Phase.LEDGER_INSERTS);
+        transactionRepository.flush();
+        entityManager.clear();
+    }
+
+    private Optional<Account> findAccount(List<Account> accounts, Long accountId) {
+        return accounts.stream()
+                .filter(account -> account.getId().equals(accountId))
+                .findFirst();
+    }
+
+    /**
+     * Ligne TRANSFER_OUT d'un virement, vue de l'émetteur
+     */
+    private Transaction buildOutTransaction(Account fromAccount, Account toAccount, BigDecimal amount,
+                                            String description, String reference, String referenceId,
+                                            LocalDateTime now) {
+        return Transaction.builder()
+                .fromAccountId(fromAccount.getId())
+                .toAccountId(toAccount.getId())
+                .amount(amount)
+                .currency(fromAccount.getCurrency())
+                .type(Transaction.TransactionType.TRANSFER_OUT)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .description(String.format("Virement vers %s - %s", 
+                        maskAccountNumber(toAccount.getAccountNumber()), 
+                        description))
+                .reference(reference + "-OUT")
+                .referenceId(referenceId)  // Même referenceId pour les 2 transactions
+                .createdAt(now)
+                .completedAt(now)
+                .build();
+    }
+
+    /**
+     * Ligne TRANSFER_IN d'un virement, vue du récepteur
+     */
+    private Transaction buildInTransaction(Account fromAccount, Account toAccount, BigDecimal amount,
+                                           String description, String reference, String referenceId,
+                                           LocalDateTime now) {
+        return Transaction.builder()
+                .fromAccountId(fromAccount.getId())
+                .toAccountId(toAccount.getId())
+                .amount(amount)
+                .currency(toAccount.getCurrency())
+                .type(Transaction.TransactionType.TRANSFER_IN)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .description(String.format("Virement depuis %s - %s", 
+                        maskAccountNumber(fromAccount.getAccountNumber()), 
+                        description))
+                .reference(reference + "-IN")
+                .referenceId(referenceId)  // Même referenceId
+                .createdAt(now)
+                .completedAt(now)
+                .build();
     }
 
     /**
      * Génère une référence unique pour la transaction
      */
-    private String generateReference() {
+    static String generateReference() {
         return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 
     /**
      * Génère un ID de référence pour lier les 2 transactions d'un virement
      */
-    private String generateTransferReferenceId() {
+    static String generateTransferReferenceId() {
         return "TRF-" + UUID.randomUUID().toString().substring(0, 13);
     }
 
@@ -261,7 +902,7 @@ public class TransactionService {
      * Masque un numéro de compte pour la description
      * Ex: FR7612345678901234567890 → FR76****7890
      */
-    private String maskAccountNumber(String accountNumber) {
+    static String maskAccountNumber(String accountNumber) {
         if (accountNumber == null || accountNumber.length() < 8) {
             return accountNumber;
         }
@@ -271,7 +912,7 @@ public class TransactionService {
     }
 
     /**
-     * Publie l'événement de transaction sur Kafka
+     * Dépose l'événement de transaction dans l'outbox (publié sur Kafka par OutboxRelay après commit)
      */
     private void publishTransactionEvent(Transaction transaction, Long userId) {
         TransactionEvent event = TransactionEvent.builder()
@@ -287,14 +928,14 @@ public class TransactionService {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        kafkaProducerService.publishTransactionEvent(event);
+        outboxService.enqueueTransactionEvent(event);
     }
 
     /**
      * ===== MAPPER SIMPLIFIÉ =====
      * Plus besoin de logique complexe car les transactions ont déjà le bon type !
      */
-    private TransactionDTO mapToDTO(Transaction transaction, Long currentAccountId) {
+    static TransactionDTO mapToDTO(Transaction transaction, Long currentAccountId) {
         // Pour les virements, on filtre pour ne montrer que la transaction pertinente
         Transaction.TransactionType displayType = transaction.getType();
         
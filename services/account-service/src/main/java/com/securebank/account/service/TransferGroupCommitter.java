@@ -0,0 +1,237 @@
+package com.securebank.account.service;
+
+import com.securebank.account.datasource.ReadYourWritesTracker;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.dto.TransferRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit des virements : les virements d'un même compte source sont mis en file en mémoire,
+ * puis appliqués ensemble en une seule transaction SQL (un verrou, un débit, un commit) au lieu d'un
+ * commit par virement. Chaque appelant attend le résultat de son propre virement.
+ *
+ * Les files sont réparties par compte source sur {@code workers} threads : un compte donné est toujours
+ * traité par le même thread, dans l'ordre d'arrivée. Un thread attend au plus {@code max-wait-ms} après
+ * le premier virement d'un groupe pour le compléter, jusqu'à {@code max-batch-size} virements.
+ * Si la transaction du groupe échoue, chaque virement est rejoué seul : un virement en erreur ne fait
+ * pas échouer ses voisins.
+ *
+ * Le commit a lieu sur un thread du group commit, sans l'utilisateur de la requête : l'écriture de
+ * chaque virement validé est donc signalée ici au suivi read-your-writes (réplique activée), avant de
+ * rendre la main à l'appelant.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class TransferGroupCommitter {
+
+    static final String GROUP_SIZE_METRIC = "account.transfer.group.size";
+    static final String QUEUE_WAIT_METRIC = "account.transfer.group.queue.wait";
+
+    private final TransactionService transactionService;
+    private final ObjectProvider<ReadYourWritesTracker> readYourWrites;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final List<BlockingQueue<Submission>> queues;
+    private final List<Thread> workers;
+    private final DistributionSummary groupSize;
+    private final Timer queueWait;
+
+    private volatile boolean running = true;
+
+    /**
+     * Virement en file, complété après le commit de son groupe
+     */
+    public record Submission(Long userId, TransferRequest request, long enqueuedAtNanos,
+                             CompletableFuture<TransactionDTO> result) {
+    }
+
+    /**
+     * Résultat d'un virement du groupe : la transaction TRANSFER_OUT, ou l'exception qui l'a rejeté
+     */
+    public record Outcome(TransactionDTO transaction, RuntimeException error) {
+    }
+
+    public TransferGroupCommitter(TransactionService transactionService,
+                                  ObjectProvider<ReadYourWritesTracker> readYourWrites,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${transactions.group-commit.max-batch-size:200}") int maxBatchSize,
+                                  @Value("${transactions.group-commit.max-wait-ms:5}") long maxWaitMs,
+                                  @Value("${transactions.group-commit.workers:4}") int workerCount,
+                                  @Value("${transactions.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.transactionService = transactionService;
+        this.readYourWrites = readYourWrites;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.queues = new ArrayList<>(workerCount);
+        this.workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Submission> queue = new LinkedBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            Thread worker = new Thread(() -> drainLoop(queue), "transfer-group-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        this.groupSize = DistributionSummary.builder(GROUP_SIZE_METRIC)
+                .description("Transfers applied per group commit")
+                .baseUnit("transfers")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWait = Timer.builder(QUEUE_WAIT_METRIC)
+                .description("Time spent by a transfer in the group commit queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        workers.forEach(Thread::start);
+        log.info("Transfer group commit enabled: workers={}, maxBatchSize={}, maxWaitMs={}",
+                workers.size(), maxBatchSize, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Met le virement en file et attend le commit de son groupe
+     */
+    public TransactionDTO transfer(Long userId, TransferRequest request) {
+        try {
+            return submit(userId, request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    CompletableFuture<TransactionDTO> submit(Long userId, TransferRequest request) {
+        Submission submission = new Submission(userId, request, System.nanoTime(), new CompletableFuture<>());
+        BlockingQueue<Submission> queue = queues.get(
+                (int) Math.floorMod(request.getFromAccountId(), (long) queues.size()));
+        try {
+            // File pleine : l'appelant attend (contre-pression) plutôt que de grossir la mémoire
+            queue.put(submission);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            submission.result().completeExceptionally(new IllegalStateException("Interrupted while queuing transfer", e));
+        }
+        return submission.result();
+    }
+
+    private void drainLoop(BlockingQueue<Submission> queue) {
+        List<Submission> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                // Groupe incomplet : attendre d'autres virements, au plus max-wait-ms après le premier
+                long deadline = first.enqueuedAtNanos() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    Submission next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(submission -> submission.result()
+                        .completeExceptionally(new IllegalStateException("Transfer group commit is shutting down")));
+                break;
+            } catch (RuntimeException e) {
+                log.error("Transfer group commit worker failed", e);
+                batch.forEach(submission -> submission.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        // Arrêt : ne laisser aucun appelant bloqué
+        List<Submission> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(submission -> submission.result()
+                .completeExceptionally(new IllegalStateException("Transfer group commit is shutting down")));
+    }
+
+    void commit(List<Submission> batch) {
+        long now = System.nanoTime();
+        Map<Long, List<Submission>> bySource = new LinkedHashMap<>();
+        for (Submission submission : batch) {
+            queueWait.record(now - submission.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+            bySource.computeIfAbsent(submission.request().getFromAccountId(), id -> new ArrayList<>()).add(submission);
+        }
+
+        for (Map.Entry<Long, List<Submission>> group : bySource.entrySet()) {
+            groupSize.record(group.getValue().size());
+            try {
+                complete(group.getValue(), transactionService.transferGroup(group.getKey(), group.getValue()));
+            } catch (RuntimeException e) {
+                if (group.getValue().size() == 1) {
+                    group.getValue().get(0).result().completeExceptionally(e);
+                    continue;
+                }
+                log.warn("Transfer group failed, replaying {} transfers one by one: from={}",
+                        group.getValue().size(), group.getKey(), e);
+                replayIndividually(group.getKey(), group.getValue());
+            }
+        }
+    }
+
+    private void replayIndividually(Long fromAccountId, List<Submission> submissions) {
+        for (Submission submission : submissions) {
+            try {
+                complete(List.of(submission), transactionService.transferGroup(fromAccountId, List.of(submission)));
+            } catch (RuntimeException e) {
+                submission.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void complete(List<Submission> submissions, List<Outcome> outcomes) {
+        ReadYourWritesTracker tracker = readYourWrites.getIfAvailable();
+        for (int i = 0; i < submissions.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.error() != null) {
+                submissions.get(i).result().completeExceptionally(outcome.error());
+            } else {
+                // Avant de réveiller l'appelant : sa lecture suivante doit déjà être routée vers le primaire
+                if (tracker != null) {
+                    tracker.recordWrite(submissions.get(i).userId());
+                }
+                submissions.get(i).result().complete(outcome.transaction());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.securebank.account.service;
+
+import com.securebank.account.dto.TransactionCursor;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fil de transactions d'un utilisateur, tous comptes confondus.
+ *
+ * Le fil est lu par petits lots keyset (createdAt DESC, id DESC), chaque lot en une seule requête pour
+ * tous les comptes de l'utilisateur : le nombre de requêtes ne dépend pas du nombre de comptes. Les lignes
+ * sont projetées directement en DTO (aucune entité gérée) et seule la fenêtre demandée est conservée :
+ * la mémoire dépend de la taille de page, pas de l'historique.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserTransactionFeed {
+
+    // Taille maximale d'un lot
+    static final int MAX_FETCH_SIZE = 200;
+
+    private final TransactionRepository transactionRepository;
+
+    /**
+     * Retourne les lignes [skip, skip + limit) du fil, strictement après le curseur
+     */
+    public List<TransactionDTO> window(Collection<Long> accountIds, TransactionCursor after, long skip, int limit) {
+        List<TransactionDTO> window = new ArrayList<>(limit);
+        LocalDateTime lastCreatedAt = after.createdAt();
+        Long lastId = after.id();
+        long skipped = 0;
+
+        while (window.size() < limit) {
+            int fetchSize = (int) Math.min(skip - skipped + limit - window.size(), MAX_FETCH_SIZE);
+            List<TransactionDTO> chunk = transactionRepository.findUserTransactionDTOsBefore(
+                    accountIds, lastCreatedAt, lastId, fetchSize);
+
+            for (TransactionDTO transaction : chunk) {
+                if (skipped < skip) {
+                    skipped++;
+                } else {
+                    window.add(transaction);
+                }
+            }
+
+            if (chunk.size() < fetchSize) {
+                break;
+            }
+            TransactionDTO last = chunk.get(chunk.size() - 1);
+            lastCreatedAt = last.getCreatedAt();
+            lastId = last.getId();
+        }
+        return window;
+    }
+}
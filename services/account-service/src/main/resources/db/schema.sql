@@ -0,0 +1,52 @@
+-- Exécuté à chaque démarrage, après ddl-auto (spring.jpa.defer-datasource-initialization).
+-- Les instructions doivent rester idempotentes.
+
+-- Passage des ids IDENTITY aux séquences "pooled" : on recale chaque séquence au-delà
+-- du plus grand id existant, uniquement si elle est en retard (première exécution).
+SELECT setval('accounts_seq', (SELECT MAX(id) FROM accounts))
+WHERE (SELECT last_value FROM accounts_seq) < (SELECT COALESCE(MAX(id), 0) FROM accounts);
+
+SELECT setval('transactions_seq', (SELECT MAX(id) FROM transactions))
+WHERE (SELECT last_value FROM transactions_seq) < (SELECT COALESCE(MAX(id), 0) FROM transactions);
+
+-- Index mono-colonne remplacés par les index composites (compte, created_at, id)
+DROP INDEX IF EXISTS idx_from_account;
+DROP INDEX IF EXISTS idx_to_account;
+DROP INDEX IF EXISTS idx_created_at;
+
+-- Blocs de numéros de compte réservés par AccountNumberAllocator (un nextval = 1000 numéros)
+CREATE SEQUENCE IF NOT EXISTS account_number_block_seq;
+
+-- Sous-soldes des comptes désignés dans accounts.striping.hot-accounts (voir StripedBalanceService)
+CREATE TABLE IF NOT EXISTS account_balance_stripes (
+    account_id BIGINT NOT NULL REFERENCES accounts (id),
+    stripe     SMALLINT NOT NULL,
+    balance    NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, stripe)
+);
+
+-- Comptes dont le solde diffère du grand livre, relevés par LedgerReconciliationService
+CREATE TABLE IF NOT EXISTS ledger_mismatches (
+    id               BIGSERIAL PRIMARY KEY,
+    run_id           VARCHAR(36) NOT NULL,
+    account_id       BIGINT NOT NULL,
+    recorded_balance NUMERIC(19, 2) NOT NULL,
+    ledger_balance   NUMERIC(19, 2) NOT NULL,
+    detected_at      TIMESTAMP NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS idx_ledger_mismatches_account ON ledger_mismatches (account_id, detected_at);
+
+-- Solde d'ouverture du grand livre : somme signée des transactions des partitions détachées
+-- par TransactionPartitionManager, cumulée à chaque détachement
+CREATE TABLE IF NOT EXISTS ledger_opening_balances (
+    account_id BIGINT PRIMARY KEY,
+    balance    NUMERIC(19, 2) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Baux des traitements planifiés exécutés par une seule instance à la fois
+CREATE TABLE IF NOT EXISTS job_leases (
+    name       VARCHAR(64) PRIMARY KEY,
+    owner      VARCHAR(36) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,129 @@
+package com.securebank.account.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.securebank.account.dto.AccountDTO;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Account;
+import com.securebank.account.model.Transaction;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCacheSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    @Test
+    @DisplayName("Should round-trip account lists and be smaller than JSON")
+    void testAccountListRoundTrip() {
+        // Given
+        BinaryCacheSerializer serializer = new BinaryCacheSerializer(json, CacheCompression.NONE, 512);
+        List<AccountDTO> accounts = List.of(account(1L), account(2L));
+
+        // When
+        byte[] bytes = serializer.serialize(accounts);
+
+        // Then
+        assertEquals(accounts, serializer.deserialize(bytes));
+        assertTrue(bytes.length < json.serialize(accounts).length);
+    }
+
+    @Test
+    @DisplayName("Should compress large values with LZ4 and zstd and decode them back")
+    void testCompressedRoundTrip() {
+        // Given
+        List<TransactionDTO> transactions = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            transactions.add(transaction(i));
+        }
+
+        for (CacheCompression compression : List.of(CacheCompression.LZ4, CacheCompression.ZSTD)) {
+            BinaryCacheSerializer serializer = new BinaryCacheSerializer(json, compression, 512);
+            byte[] uncompressed = new BinaryCacheSerializer(json, CacheCompression.NONE, 512).serialize(transactions);
+
+            // When
+            byte[] bytes = serializer.serialize(transactions);
+
+            // Then
+            assertEquals(compression.getId(), bytes[1]);
+            assertTrue(bytes.length < uncompressed.length, compression.name());
+            assertEquals(transactions, serializer.deserialize(bytes));
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave small values uncompressed")
+    void testBelowThresholdNotCompressed() {
+        BinaryCacheSerializer serializer = new BinaryCacheSerializer(json, CacheCompression.LZ4, 512);
+
+        byte[] bytes = serializer.serialize(account(1L));
+
+        assertEquals(CacheCompression.NONE.getId(), bytes[1]);
+        assertEquals(account(1L), serializer.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("Should treat legacy JSON and other schema versions as cache misses")
+    void testUnknownVersionIsMiss() {
+        BinaryCacheSerializer serializer = new BinaryCacheSerializer(json, CacheCompression.NONE, 512);
+
+        byte[] legacy = json.serialize(List.of(account(1L)));
+        byte[] nextVersion = serializer.serialize(account(1L));
+        nextVersion[0] = BinaryCacheSerializer.SCHEMA_VERSION + 1;
+
+        assertNull(serializer.deserialize(legacy));
+        assertNull(serializer.deserialize(nextVersion));
+    }
+
+    @Test
+    @DisplayName("Should fall back to JSON for other value types")
+    void testJsonFallback() {
+        BinaryCacheSerializer serializer = new BinaryCacheSerializer(json, CacheCompression.NONE, 512);
+
+        Object value = serializer.deserialize(serializer.serialize(Map.of("key", "value")));
+
+        assertEquals(Map.of("key", "value"), value);
+    }
+
+    private static AccountDTO account(Long id) {
+        return AccountDTO.builder()
+                .id(id)
+                .userId(100L)
+                .accountNumber("FR761234567890123456789012" + id)
+                .accountType(Account.AccountType.CHECKING)
+                .balance(new BigDecimal("1234.56"))
+                .currency("EUR")
+                .status(Account.AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0, 0, 123456000))
+                .build();
+    }
+
+    private static TransactionDTO transaction(Long id) {
+        return TransactionDTO.builder()
+                .id(id)
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .amount(new BigDecimal("-42.10"))
+                .currency("EUR")
+                .type(Transaction.TransactionType.TRANSFER_OUT)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .description("Virement loyer")
+                .reference("TXN-" + id)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0).plusMinutes(id))
+                .completedAt(LocalDateTime.of(2025, 1, 1, 10, 0).plusMinutes(id))
+                .build();
+    }
+}
@@ -0,0 +1,271 @@
+package com.securebank.account.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager("accounts");
+
+    private TwoLevelCacheManager cacheManager;
+    private Cache remote;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoLevelCacheManager(remoteCacheManager, invalidationPublisher, meterRegistry,
+                100, Duration.ofMinutes(1), new EarlyRefreshPolicy(Duration.ofMinutes(5), 0, Runnable::run));
+        remote = remoteCacheManager.getCache("accounts");
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from L1 after the first L2 hit")
+    void testReadThroughTiers() {
+        // Given
+        remote.put(100L, List.of("FR76..."));
+        Cache cache = cacheManager.getCache("accounts");
+
+        // When
+        cache.get(100L);
+        remote.evict(100L); // L2 n'est plus consulté une fois la valeur en L1
+        Cache.ValueWrapper value = cache.get(100L);
+
+        // Then
+        assertNotNull(value);
+        assertEquals(List.of("FR76..."), value.get());
+        assertEquals(1.0, count("l1", "hit"));
+        assertEquals(1.0, count("l1", "miss"));
+        assertEquals(1.0, count("l2", "hit"));
+        assertEquals(0.0, count("l2", "miss"));
+    }
+
+    @Test
+    @DisplayName("Should evict both tiers and broadcast the invalidation")
+    void testEvictBroadcasts() {
+        // Given
+        Cache cache = cacheManager.getCache("accounts");
+        cache.put(100L, "cached");
+
+        // When
+        cache.evict(100L);
+
+        // Then
+        assertNull(cache.get(100L));
+        assertNull(remote.get(100L));
+        verify(invalidationPublisher, times(2)).publishEvict("accounts", "100"); // put puis evict
+        assertEquals(1.0, count("l2", "miss"));
+    }
+
+    @Test
+    @DisplayName("Should clear only L1 on invalidations from other instances and ignore its own")
+    void testRemoteInvalidation() {
+        // Given
+        when(invalidationPublisher.getInstanceId()).thenReturn("self");
+        Cache cache = cacheManager.getCache("accounts");
+        cache.put(100L, "cached");
+        cache.put(200L, "cached");
+
+        // When
+        cacheManager.onMessage(message(new CacheInvalidation("self", System.currentTimeMillis(), "accounts", "200")), null);
+        cacheManager.onMessage(message(new CacheInvalidation("other", System.currentTimeMillis(), "accounts", "100")), null);
+        remote.evict(200L);
+
+        // Then - 100 relu depuis L2, 200 toujours servi par L1
+        assertEquals("cached", cache.get(100L).get());
+        assertEquals("cached", cache.get(200L).get());
+        assertEquals(1.0, count("l2", "hit"));
+        assertEquals(1.0, count("l1", "hit"));
+    }
+
+    @Test
+    @DisplayName("Should evict L2 when a load published it around another instance's invalidation")
+    void testStaleLoadFromOtherInstance() {
+        // Given - cette instance publie dans L2 une valeur lue avant le virement de l'autre instance
+        when(invalidationPublisher.getInstanceId()).thenReturn("self");
+        Cache cache = cacheManager.getCache("accounts");
+        cache.get(100L, () -> "balance-before-transfer");
+        cache.get(200L, () -> "balance");
+
+        // When - l'autre instance a évincé L2 avant la publication, puis diffusé son invalidation
+        long sentAt = System.currentTimeMillis();
+        cacheManager.onMessage(message(new CacheInvalidation("other", sentAt, "accounts", "100")), null);
+        cacheManager.onMessage(message(new CacheInvalidation("other", sentAt + TimeUnit.HOURS.toMillis(1), "accounts", "200")), null);
+
+        // Then - 100 est relu depuis la base ; 200, publié bien avant l'invalidation, reste en L2
+        assertNull(remote.get(100L));
+        assertEquals("balance", remote.get(200L).get());
+    }
+
+    @Test
+    @DisplayName("Should not broadcast an invalidation for values loaded on a miss")
+    void testLoadDoesNotBroadcast() {
+        // Given
+        Cache cache = cacheManager.getCache("accounts");
+
+        // When
+        cache.get(100L, () -> "loaded");
+
+        // Then - les autres instances gardent leur L1, la valeur est bien publiée localement
+        verifyNoInteractions(invalidationPublisher);
+        assertEquals("loaded", remote.get(100L).get());
+        assertEquals("loaded", cache.get(100L).get());
+    }
+
+    @Test
+    @DisplayName("Should not keep in L1 a value read from L2 before a concurrent invalidation")
+    void testInvalidationDuringRemoteRead() {
+        // Given - l'invalidation d'une autre instance arrive pendant la lecture de L2
+        AtomicReference<TwoLevelCache> cacheRef = new AtomicReference<>();
+        ConcurrentMapCache slowRemote = new ConcurrentMapCache("accounts") {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper value = super.get(key);
+                if (value != null) {
+                    super.evict(key);
+                    cacheRef.get().evictLocal(String.valueOf(key), System.currentTimeMillis());
+                }
+                return value;
+            }
+        };
+        TwoLevelCache cache = new TwoLevelCache("accounts", Caffeine.newBuilder().build(), slowRemote,
+                invalidationPublisher, new EarlyRefreshPolicy(Duration.ofMinutes(5), 0, Runnable::run),
+                Caffeine.newBuilder().build(), meterRegistry);
+        cacheRef.set(cache);
+        slowRemote.put(100L, "balance-before-transfer");
+
+        // When
+        Cache.ValueWrapper first = cache.get(100L);
+        Cache.ValueWrapper second = cache.get(100L);
+
+        // Then - la lecture en cours rend l'ancienne valeur, la suivante ne la trouve pas en L1
+        assertEquals("balance-before-transfer", first.get());
+        assertNull(second);
+        assertEquals(2.0, count("l1", "miss"));
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent misses on the same key into a single load")
+    void testSingleFlight() throws Exception {
+        // Given - le chargement ne se termine qu'une fois les 7 autres requêtes en attente
+        Cache cache = cacheManager.getCache("accounts");
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get(100L, () -> {
+                loads.incrementAndGet();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (coalesced() < 7 && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                return "loaded";
+            })));
+        }
+
+        // Then
+        for (Future<String> result : results) {
+            assertEquals("loaded", result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals(7.0, coalesced());
+    }
+
+    @Test
+    @DisplayName("Should not cache a value loaded before an eviction of the same key")
+    void testEvictDuringLoad() throws Exception {
+        // Given - un chargement lit l'ancien solde puis reste bloqué avant sa mise en cache
+        Cache cache = cacheManager.getCache("accounts");
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> loaded = executor.submit(() -> cache.get(100L, () -> {
+            read.countDown();
+            evicted.await(5, TimeUnit.SECONDS);
+            return "balance-before-transfer";
+        }));
+        assertTrue(read.await(5, TimeUnit.SECONDS));
+
+        // When - le virement commit et évince la clé, puis le chargement se termine
+        cache.evict(100L);
+        evicted.countDown();
+
+        // Then - la valeur est rendue à l'appelant mais n'est publiée dans aucun niveau
+        assertEquals("balance-before-transfer", loaded.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertNull(remote.get(100L));
+        assertNull(cache.get(100L));
+        assertEquals("balance-after-transfer", cache.get(100L, () -> "balance-after-transfer"));
+        assertEquals("balance-after-transfer", remote.get(100L).get());
+    }
+
+    @Test
+    @DisplayName("Should refresh a hot entry in the background before it expires")
+    void testEarlyRefresh() {
+        // Given - beta démesuré : le prochain accès tombe toujours dans la fenêtre de rafraîchissement
+        TwoLevelCacheManager eagerManager = new TwoLevelCacheManager(remoteCacheManager, invalidationPublisher,
+                meterRegistry, 100, Duration.ofMinutes(1), new EarlyRefreshPolicy(Duration.ofMinutes(5), 1e12, Runnable::run));
+        Cache cache = eagerManager.getCache("accounts");
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        String first = cache.get(100L, () -> "v" + loads.incrementAndGet());
+        String second = cache.get(100L, () -> "v" + loads.incrementAndGet());
+
+        // Then - la valeur en place est servie, le rechargement met le cache à jour
+        assertEquals("v1", first);
+        assertEquals("v1", second);
+        assertEquals(2, loads.get());
+        assertEquals("v2", remote.get(100L).get());
+        assertEquals(1.0, meterRegistry.get(TwoLevelCache.EARLY_REFRESH_METRIC).tag("cache", "accounts").counter().count());
+        verifyNoInteractions(invalidationPublisher);
+    }
+
+    private double coalesced() {
+        return meterRegistry.get(TwoLevelCache.COALESCED_METRIC).tag("cache", "accounts").counter().count();
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get(TwoLevelCache.REQUESTS_METRIC)
+                .tag("cache", "accounts").tag("tier", tier).tag("result", result)
+                .counter().count();
+    }
+
+    private static DefaultMessage message(CacheInvalidation invalidation) {
+        return new DefaultMessage("cache-invalidation".getBytes(StandardCharsets.UTF_8),
+                invalidation.encode().getBytes(StandardCharsets.UTF_8));
+    }
+}
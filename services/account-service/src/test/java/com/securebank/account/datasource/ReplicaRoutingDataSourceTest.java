@@ -0,0 +1,110 @@
+package com.securebank.account.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica,
+                new ReadYourWritesTracker(Duration.ofSeconds(5)), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWritesTracker.clearUser();
+    }
+
+    @Test
+    @DisplayName("Should route read-only transactions to the replica and everything else to the primary")
+    void testRouting() throws Exception {
+        // Hors transaction : primaire
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        // Transaction readOnly : réplique
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+
+        assertEquals(1.0, meterRegistry.get(ReplicaRoutingDataSource.ROUTING_METRIC)
+                .tag("pool", "replica").tag("reason", "read-only").counter().count());
+        assertEquals(1.0, meterRegistry.get(ReplicaRoutingDataSource.ROUTING_METRIC)
+                .tag("pool", "primary").tag("reason", "read-write").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep a user's reads on the primary right after their own committed write")
+    void testReadYourWrites() throws Exception {
+        // Given - écriture validée par l'utilisateur 7
+        ReadYourWritesTracker.bindUser(7L);
+        TransactionSynchronizationManager.initSynchronization();
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // When
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Then - ses lectures restent sur le primaire, celles des autres vont à la réplique
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        ReadYourWritesTracker.bindUser(8L);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(1.0, meterRegistry.get(ReplicaRoutingDataSource.ROUTING_METRIC)
+                .tag("reason", "read-your-writes").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should not pin reads after a rolled back write")
+    void testRolledBackWrite() throws Exception {
+        ReadYourWritesTracker.bindUser(7L);
+        TransactionSynchronizationManager.initSynchronization();
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+}
@@ -0,0 +1,139 @@
+package com.securebank.account.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routage lecture/écriture sur un vrai couple primaire / réplique PostgreSQL en réplication
+ * en flux (streaming replication), avec la même pile que l'application : proxy paresseux,
+ * routage, transactions Spring.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingIntegrationTest {
+
+    private static final String IMAGE = "bitnami/postgresql:15";
+    private static final String DATABASE = "business_db";
+    private static final String PASSWORD = "postgres";
+
+    static Network network = Network.newNetwork();
+
+    @Container
+    static GenericContainer<?> primary = new GenericContainer<>(IMAGE)
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withExposedPorts(5432)
+            .withEnv("POSTGRESQL_REPLICATION_MODE", "master")
+            .withEnv("POSTGRESQL_REPLICATION_USER", "replicator")
+            .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "replicator")
+            .withEnv("POSTGRESQL_PASSWORD", PASSWORD)
+            .withEnv("POSTGRESQL_DATABASE", DATABASE)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    @Container
+    static GenericContainer<?> replica = new GenericContainer<>(IMAGE)
+            .withNetwork(network)
+            .dependsOn(primary)
+            .withExposedPorts(5432)
+            .withEnv("POSTGRESQL_REPLICATION_MODE", "slave")
+            .withEnv("POSTGRESQL_REPLICATION_USER", "replicator")
+            .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "replicator")
+            .withEnv("POSTGRESQL_MASTER_HOST", "primary")
+            .withEnv("POSTGRESQL_MASTER_PORT_NUMBER", "5432")
+            .withEnv("POSTGRESQL_PASSWORD", PASSWORD)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read.only connections.*", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    private static HikariDataSource primaryPool;
+    private static HikariDataSource replicaPool;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate readWrite;
+    private static TransactionTemplate readOnly;
+
+    @BeforeAll
+    static void setUp() {
+        primaryPool = pool("primary", primary);
+        replicaPool = pool("replica", replica);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primaryPool, replicaPool, new ReadYourWritesTracker(Duration.ofSeconds(2)), new SimpleMeterRegistry()));
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS routing_probe (id BIGINT PRIMARY KEY)");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        primaryPool.close();
+        replicaPool.close();
+        ReadYourWritesTracker.clearUser();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions should run on the streaming replica, writes on the primary")
+    void testRoutingToReplica() {
+        assertEquals(Boolean.FALSE, readWrite.execute(status -> inRecovery()));
+        assertEquals(Boolean.TRUE, readOnly.execute(status -> inRecovery()));
+    }
+
+    @Test
+    @DisplayName("A user's reads should stay on the primary within the read-your-writes window")
+    void testReadYourWrites() throws InterruptedException {
+        // Given - écriture de l'utilisateur 7
+        ReadYourWritesTracker.bindUser(7L);
+        readWrite.executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO routing_probe (id) VALUES (?) ON CONFLICT DO NOTHING", 1L));
+
+        // Then - relu immédiatement sur le primaire, quel que soit le retard de la réplique
+        assertEquals(Boolean.FALSE, readOnly.execute(status -> inRecovery()));
+        assertEquals(1, probeCount());
+
+        // Fenêtre écoulée : retour sur la réplique, qui a rattrapé l'écriture
+        Thread.sleep(2500);
+        assertEquals(Boolean.TRUE, readOnly.execute(status -> inRecovery()));
+        assertEquals(1, probeCount());
+    }
+
+    private static int probeCount() {
+        Integer count = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM routing_probe WHERE id = 1", Integer.class));
+        return count != null ? count : 0;
+    }
+
+    private static Boolean inRecovery() {
+        return jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+    }
+
+    private static HikariDataSource pool(String name, GenericContainer<?> container) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:postgresql://" + container.getHost() + ":" + container.getMappedPort(5432)
+                + "/" + DATABASE);
+        dataSource.setUsername("postgres");
+        dataSource.setPassword(PASSWORD);
+        dataSource.setMaximumPoolSize(4);
+        return dataSource;
+    }
+}
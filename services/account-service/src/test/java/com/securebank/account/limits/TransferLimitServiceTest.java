@@ -0,0 +1,228 @@
+package com.securebank.account.limits;
+
+import com.securebank.account.exception.TransferLimitExceededException;
+import com.securebank.account.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransferLimitServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferLimitProperties properties;
+    private TransferLimitService transferLimitService;
+
+    private final Account account = Account.builder()
+            .id(1L)
+            .userId(100L)
+            .accountType(Account.AccountType.CHECKING)
+            .status(Account.AccountStatus.ACTIVE)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        TransferLimitProperties.Limits checking = new TransferLimitProperties.Limits();
+        checking.setMaxAmount(new BigDecimal("10000"));
+        checking.setDaily(new BigDecimal("15000"));
+        checking.setMonthly(new BigDecimal("50000"));
+        checking.setPerMinute(3);
+        properties = new TransferLimitProperties();
+        properties.getTypes().put(Account.AccountType.CHECKING, checking);
+
+        meterRegistry = new SimpleMeterRegistry();
+        when(redisTemplateProvider.getObject()).thenReturn(redisTemplate);
+        transferLimitService = new TransferLimitService(jdbcTemplate, redisTemplateProvider, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(transferLimitService);
+    }
+
+    @Test
+    @DisplayName("Should enforce the single, daily and per-minute limits of the account type")
+    void testLimits() {
+        // Plafond unitaire
+        TransferLimitExceededException single = assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(account, new BigDecimal("10000.01"), 1));
+        assertEquals("Transfer amount exceeds maximum limit of 10000 EUR", single.getMessage());
+
+        // Cumul journalier : 2 x 7000 passent, le 3e dépasserait 15000
+        transferLimitService.reserve(account, new BigDecimal("7000"), 1);
+        transferLimitService.reserve(account, new BigDecimal("7000"), 1);
+        assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(account, new BigDecimal("1001"), 0));
+
+        // Vélocité : 3 virements par minute au plus
+        transferLimitService.reserve(account, new BigDecimal("1"), 1);
+        TransferLimitExceededException velocity = assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(account, new BigDecimal("1"), 1));
+        assertEquals("Too many transfers: at most 3 per minute", velocity.getMessage());
+
+        assertEquals(1.0, meterRegistry.get(TransferLimitService.REJECTIONS_METRIC).tag("limit", "daily").counter().count());
+        // Type sans plafond configuré : jamais limité
+        Account savings = Account.builder().id(2L).accountType(Account.AccountType.SAVINGS).build();
+        assertDoesNotThrow(() -> transferLimitService.reserve(savings, new BigDecimal("1000000"), 1));
+    }
+
+    @Test
+    @DisplayName("Should release the reservation when the transaction rolls back")
+    void testReleaseOnRollback() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        transferLimitService.reserve(account, new BigDecimal("9000"), 1);
+        transferLimitService.reserve(account, new BigDecimal("5000"), 0);
+
+        // When - une seule synchronisation pour toute la transaction
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Then - le plafond journalier est de nouveau entièrement disponible
+        assertDoesNotThrow(() -> transferLimitService.reserve(account, new BigDecimal("10000"), 1));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should rebuild counters from the ledger and apply transfers from other instances")
+    void testRebuildAndRemoteEvents() throws Exception {
+        // Given - 12000 EUR virés il y a une heure, selon le grand livre
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("from_account_id")).thenReturn(1L);
+        when(row.getTimestamp("minute")).thenReturn(new Timestamp(System.currentTimeMillis() - AccountVelocity.HOUR_MILLIS));
+        when(row.getBigDecimal("amount")).thenReturn(new BigDecimal("12000.00"));
+        when(row.getInt("operations")).thenReturn(2);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        // When - reconstruit au démarrage du contexte, avant le serveur web
+        transferLimitService.start();
+        transferLimitService.onMessage(new DefaultMessage("transfer-velocity".getBytes(StandardCharsets.UTF_8),
+                new VelocityEvent("other-instance", 1L, System.currentTimeMillis(), 200_000L, 1)
+                        .encode().getBytes(StandardCharsets.UTF_8)), null);
+
+        // Then - 12000 + 2000 déjà consommés sur 15000
+        transferLimitService.reserve(account, new BigDecimal("1000"), 1);
+        assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(account, new BigDecimal("0.01"), 0));
+    }
+
+    @Test
+    @DisplayName("Should rebuild once, before the web server, counting a batch as one transfer")
+    void testRebuildLifecycle() {
+        // When
+        transferLimitService.start();
+        transferLimitService.stop();
+        transferLimitService.start();
+
+        // Then - un virement par referenceId ; la phase précède celle du serveur web
+        verify(jdbcTemplate, times(1)).query(contains("GROUP BY from_account_id, COALESCE(reference_id, id::text)"),
+                any(RowCallbackHandler.class), any(Object[].class));
+        assertTrue(transferLimitService.isRunning());
+        assertTrue(transferLimitService.getPhase() < WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1);
+    }
+
+    @Test
+    @DisplayName("Should publish committed transfers when counters are shared")
+    void testPublishOnCommit() {
+        // Given
+        properties.setShared(true);
+        TransactionSynchronizationManager.initSynchronization();
+        transferLimitService.reserve(account, new BigDecimal("100"), 1);
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+
+        // When
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Then
+        verify(redisTemplate).convertAndSend(eq("transfer-velocity"), argThat((String message) ->
+                VelocityEvent.decode(message).cents() == 10_000L));
+    }
+
+    @Test
+    @DisplayName("Should slide old transfers out of the windows")
+    void testWindowsSlide() {
+        // Given
+        AccountVelocity velocity = new AccountVelocity();
+        AccountVelocity.Thresholds thresholds = new AccountVelocity.Thresholds(1_000_000L, 2_500_000L, 2);
+        long start = 1_700_000_000_000L;
+
+        // When & Then
+        assertNull(velocity.tryAcquire(start, 1_000_000L, 1, thresholds));
+        assertEquals(AccountVelocity.Window.DAILY, velocity.tryAcquire(start + 1000, 1L, 0, thresholds));
+        assertNull(velocity.tryAcquire(start + 1000, 0L, 1, thresholds));
+        assertEquals(AccountVelocity.Window.VELOCITY, velocity.tryAcquire(start + 2000, 0L, 1, thresholds));
+        // Une minute plus tard la vélocité est libérée, 25 heures plus tard le cumul journalier aussi
+        assertNull(velocity.tryAcquire(start + 2 * AccountVelocity.MINUTE_MILLIS, 0L, 1, thresholds));
+        assertNull(velocity.tryAcquire(start + 25 * AccountVelocity.HOUR_MILLIS, 1_000_000L, 1, thresholds));
+        // Le cumul sur 30 jours retient encore les deux virements
+        assertEquals(AccountVelocity.Window.MONTHLY,
+                velocity.tryAcquire(start + 50 * AccountVelocity.HOUR_MILLIS, 600_000L, 1, thresholds));
+        assertFalse(velocity.isIdle(start + 50 * AccountVelocity.HOUR_MILLIS));
+        // Le dernier virement (start + 25 h) sort du cumul sur 30 jours une fois ces 30 jours écoulés en entier
+        assertFalse(velocity.isIdle(start + 30 * AccountVelocity.DAY_MILLIS + AccountVelocity.HOUR_MILLIS));
+        assertTrue(velocity.isIdle(start + 32 * AccountVelocity.DAY_MILLIS));
+    }
+
+    @Test
+    @DisplayName("Should keep a transfer in the window until its full duration has elapsed")
+    void testWindowBoundary() {
+        // Given - un virement en toute fin d'intervalle de 10 s
+        AccountVelocity velocity = new AccountVelocity();
+        AccountVelocity.Thresholds thresholds = new AccountVelocity.Thresholds(Long.MAX_VALUE, Long.MAX_VALUE, 1);
+        long start = 1_700_000_009_999L;
+        assertNull(velocity.tryAcquire(start, 0L, 1, thresholds));
+
+        // When & Then - 50 s plus tard, encore dans la minute glissante : refusé
+        assertEquals(AccountVelocity.Window.VELOCITY,
+                velocity.tryAcquire(start + 50_001L, 0L, 1, thresholds));
+        assertEquals(AccountVelocity.Window.VELOCITY,
+                velocity.tryAcquire(start + AccountVelocity.MINUTE_MILLIS - 1, 0L, 1, thresholds));
+        // Au-delà de la minute et de l'intervalle entamé au départ : libéré
+        assertNull(velocity.tryAcquire(start + AccountVelocity.MINUTE_MILLIS + 10_000L, 0L, 1, thresholds));
+    }
+}
@@ -0,0 +1,160 @@
+package com.securebank.account.metrics;
+
+import com.securebank.account.exception.InsufficientBalanceException;
+import com.securebank.account.metrics.TransferPhaseTimer.Mode;
+import com.securebank.account.metrics.TransferPhaseTimer.Phase;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferPhaseTimerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferPhaseTimer transferPhaseTimer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transferPhaseTimer = new TransferPhaseTimer(meterRegistry);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Should record every reached phase, commit included, once the transfer commits")
+    void testSuccessfulTransferPhases() {
+        // Given
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.SINGLE);
+        phases.begin(Phase.VALIDATION);
+        phases.begin(Phase.DESTINATION_LOOKUP);
+        phases.begin(Phase.SOURCE_DEBIT);
+        phases.begin(Phase.BALANCE_UPDATES);
+        phases.begin(Phase.LEDGER_INSERTS);
+        phases.end();
+
+        // Rien n'est publié avant la fin de la transaction
+        assertEquals(0, count("ledger_inserts", "success"));
+
+        // When
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertEquals(1, timer("validation", "success").count());
+        assertEquals(1, timer("source_debit", "success").count());
+        assertEquals(1, timer("ledger_inserts", "success").count());
+        assertEquals(1, timer("commit", "success").count());
+        assertEquals(0, count("event_publication", "success"));
+    }
+
+    @Test
+    @DisplayName("Should tag the interrupted phase with the rejection outcome and skip the commit")
+    void testRejectedTransferPhases() {
+        // Given
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.SINGLE);
+        phases.begin(Phase.VALIDATION);
+        phases.begin(Phase.SOURCE_DEBIT);
+
+        // When - le débit conditionnel échoue après l'attente du verrou
+        phases.failed(new InsufficientBalanceException("Insufficient balance"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertEquals(1, timer("source_debit", "insufficient_funds").count());
+        assertEquals(1, timer("validation", "insufficient_funds").count());
+        assertEquals(0, count("ledger_inserts", "insufficient_funds"));
+        assertEquals(0, count("commit", "insufficient_funds"));
+        assertEquals(0, count("source_debit", "success"));
+    }
+
+    @Test
+    @DisplayName("Should count a rollback without rejection as an error")
+    void testRolledBackWithoutRejection() {
+        // Given
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.SINGLE);
+        phases.begin(Phase.VALIDATION);
+        phases.end();
+
+        // When - l'appelant annule sa transaction après le virement
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertEquals(1, timer("validation", "error").count());
+        assertEquals(0, count("validation", "success"));
+    }
+
+    @Test
+    @DisplayName("Should record a transfer group as one measurement tagged with its mode")
+    void testGroupPhases() {
+        // Given
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.GROUP);
+        phases.begin(Phase.DESTINATION_LOOKUP);
+        phases.begin(Phase.ACCOUNT_LOCKS);
+        phases.begin(Phase.VALIDATION);
+        phases.begin(Phase.SOURCE_DEBIT);
+        phases.end();
+
+        // When
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertEquals(1, timer("group", "account_locks", "success").count());
+        assertEquals(1, timer("group", "source_debit", "success").count());
+        assertEquals(1, timer("group", "commit", "success").count());
+        assertEquals(0, count("single", "source_debit", "success"));
+    }
+
+    @Test
+    @DisplayName("Should register a timer only when its mode, phase and outcome are first recorded")
+    void testLazyRegistration() {
+        // Aucun timer (ni histogramme) à la construction
+        assertTrue(meterRegistry.find(TransferPhaseTimer.METRIC).timers().isEmpty());
+
+        // When
+        TransferPhaseTimer.Recording phases = transferPhaseTimer.start(Mode.BATCH);
+        phases.begin(Phase.VALIDATION);
+        phases.end();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then - validation et commit, pour ce seul mode et cette seule issue
+        assertEquals(2, meterRegistry.find(TransferPhaseTimer.METRIC).timers().size());
+        assertEquals(1, timer("batch", "validation", "success").count());
+    }
+
+    private void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCompletion();
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    // Un timer jamais atteint n'est pas enregistré
+    private long count(String phase, String outcome) {
+        return count("single", phase, outcome);
+    }
+
+    private long count(String mode, String phase, String outcome) {
+        Timer timer = meterRegistry.find(TransferPhaseTimer.METRIC)
+                .tag("mode", mode).tag("phase", phase).tag("outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private Timer timer(String phase, String outcome) {
+        return timer("single", phase, outcome);
+    }
+
+    private Timer timer(String mode, String phase, String outcome) {
+        return meterRegistry.get(TransferPhaseTimer.METRIC)
+                .tag("mode", mode).tag("phase", phase).tag("outcome", outcome).timer();
+    }
+}
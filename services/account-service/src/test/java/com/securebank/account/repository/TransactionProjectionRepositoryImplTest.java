@@ -0,0 +1,92 @@
+package com.securebank.account.repository;
+
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionProjectionRepositoryImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should map history rows straight to DTOs, showing legacy transfers from the account's side")
+    void testFindAccountTransactionDTOs() throws Exception {
+        // Given
+        TransactionProjectionRepositoryImpl repository = new TransactionProjectionRepositoryImpl(jdbcTemplate);
+        ArgumentCaptor<RowMapper<TransactionDTO>> rowMapper = ArgumentCaptor.forClass(RowMapper.class);
+        when(jdbcTemplate.query(anyString(), rowMapper.capture(), eq(2L), eq(2L), eq(2L))).thenReturn(List.of());
+        repository.findAccountTransactionDTOs(2L);
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 10, 0);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(7L);
+        when(row.getLong("from_account_id")).thenReturn(1L);
+        when(row.getLong("to_account_id")).thenReturn(2L);
+        when(row.getBigDecimal("amount")).thenReturn(new BigDecimal("42.00"));
+        when(row.getString("currency")).thenReturn("EUR");
+        when(row.getString("type")).thenReturn("TRANSFER");
+        when(row.getString("status")).thenReturn("COMPLETED");
+        when(row.getObject("created_at", LocalDateTime.class)).thenReturn(createdAt);
+
+        // When
+        TransactionDTO dto = rowMapper.getValue().mapRow(row, 0);
+
+        // Then - ligne TRANSFER de l'ancien format vue depuis le compte récepteur
+        assertEquals(7L, dto.getId());
+        assertEquals(Transaction.TransactionType.TRANSFER_IN, dto.getType());
+        assertEquals(Transaction.TransactionStatus.COMPLETED, dto.getStatus());
+        assertEquals(new BigDecimal("42.00"), dto.getAmount());
+        assertEquals(createdAt, dto.getCreatedAt());
+        assertNull(dto.getCompletedAt());
+    }
+
+    @Test
+    @DisplayName("Should read the feed of several accounts in one keyset query, transfers shown from the user's side")
+    void testFindUserTransactionDTOsBefore() throws Exception {
+        // Given
+        TransactionProjectionRepositoryImpl repository = new TransactionProjectionRepositoryImpl(jdbcTemplate);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<RowMapper<TransactionDTO>> rowMapper = ArgumentCaptor.forClass(RowMapper.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        when(jdbcTemplate.query(sql.capture(), rowMapper.capture(), args.capture())).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.of(2025, 1, 2, 0, 0);
+
+        repository.findUserTransactionDTOsBefore(List.of(1L, 3L), before, 99L, 20);
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("from_account_id")).thenReturn(3L);
+        when(row.getLong("to_account_id")).thenReturn(8L);
+        when(row.getString("currency")).thenReturn("EUR");
+        when(row.getString("type")).thenReturn("TRANSFER");
+        when(row.getString("status")).thenReturn("COMPLETED");
+
+        // When
+        TransactionDTO dto = rowMapper.getValue().mapRow(row, 0);
+
+        // Then - une seule requête, listes IN dépliées, virement de l'ancien format vu depuis l'émetteur
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), any(Object[].class));
+        assertEquals(3, sql.getValue().split("IN \\(\\?, \\?\\)", -1).length - 1);
+        assertEquals(3 * 2 + 9, args.getValue().length);
+        assertEquals(Transaction.TransactionType.TRANSFER_OUT, dto.getType());
+    }
+}
@@ -0,0 +1,123 @@
+package com.securebank.account.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Non-régression des plans d'exécution de l'historique par compte.
+ *
+ * Les requêtes sont lues dans les annotations @Query de TransactionRepository puis passées à EXPLAIN :
+ * chaque branche doit parcourir son index composite et aucun nœud Sort ne doit apparaître
+ * (les flux sont fusionnés par Merge Append / Append déjà triés). Sur plusieurs comptes, le tri des
+ * lignes lues reste nécessaire, mais aucune branche ne doit combiner les index par BitmapOr.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionQueryPlanTest {
+
+    private static final int ROWS = 200_000;
+    private static final int ACCOUNTS = 500;
+
+    // Nœud de tri dans la sortie texte d'EXPLAIN ("Sort", "Incremental Sort"), pas la ligne "Sort Key"
+    private static final Pattern SORT_NODE = Pattern.compile("^\\s*(->\\s+)?(Incremental )?Sort\\s+\\(", Pattern.MULTILINE);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> false);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE transactions");
+        jdbcTemplate.update("INSERT INTO transactions (id, from_account_id, to_account_id, amount, currency, type, status, created_at) "
+                + "SELECT g, g % " + ACCOUNTS + ", (g * 7 + 1) % " + ACCOUNTS + ", 10.00, 'EUR', 'TRANSFER_OUT', 'COMPLETED', "
+                + "timestamp '2025-01-01' + g * interval '1 minute' FROM generate_series(1, " + ROWS + ") g");
+        jdbcTemplate.execute("ANALYZE transactions");
+    }
+
+    @Test
+    @DisplayName("OFFSET page query should merge both index scans without sorting")
+    void testAccountPageQueryPlan() throws Exception {
+        String sql = query("findAccountTransactionsPage", Long.class, int.class, long.class)
+                .replace(":accountId", "42")
+                .replace(":limit", "20")
+                .replace(":offset", "40");
+
+        assertNoSortAndIndexScans(explain(sql));
+    }
+
+    @Test
+    @DisplayName("Keyset query should merge both index scans without sorting")
+    void testAccountKeysetQueryPlan() throws Exception {
+        String sql = query("findAccountTransactionsBefore", Long.class, LocalDateTime.class, Long.class, int.class)
+                .replace(":accountId", "42")
+                .replace(":createdAt", "timestamp '2025-03-01 00:00'")
+                .replace(":id", "100000")
+                .replace(":limit", "21");
+
+        assertNoSortAndIndexScans(explain(sql));
+    }
+
+    @Test
+    @DisplayName("Multi-account queries should scan each index once, without OR or sequential scan")
+    void testMultiAccountQueryPlans() throws Exception {
+        String accountIds = "42, 43, 44";
+        String list = query("findByAccountIds", Collection.class).replace(":accountIds", accountIds);
+        String count = query("countByAccountIds", Collection.class).replace(":accountIds", accountIds);
+
+        for (String plan : List.of(explain(list), explain(count))) {
+            assertTrue(plan.contains("idx_from_account_created"), plan);
+            assertTrue(plan.contains("idx_to_account_created"), plan);
+            assertFalse(plan.contains("BitmapOr"), plan);
+            assertFalse(plan.contains("Seq Scan"), plan);
+        }
+    }
+
+    private void assertNoSortAndIndexScans(String plan) {
+        assertFalse(SORT_NODE.matcher(plan).find(), plan);
+        assertTrue(plan.contains("idx_from_account_created"), plan);
+        assertTrue(plan.contains("idx_to_account_created"), plan);
+        assertFalse(plan.contains("BitmapOr"), plan);
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+
+    private static String query(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return TransactionRepository.class.getMethod(method, parameterTypes).getAnnotation(Query.class).value();
+    }
+}
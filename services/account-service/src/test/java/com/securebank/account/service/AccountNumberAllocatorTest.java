@@ -0,0 +1,82 @@
+package com.securebank.account.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private AccountNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new AccountNumberAllocator(jdbcTemplate, "12345", "00010");
+    }
+
+    @Test
+    @DisplayName("Should reserve one sequence block per 1000 account numbers")
+    void testBlockReservation() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(7L, 8L);
+
+        // When
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < AccountNumberAllocator.BLOCK_SIZE + 1; i++) {
+            numbers.add(allocator.nextAccountNumber());
+        }
+
+        // Then
+        assertEquals(AccountNumberAllocator.BLOCK_SIZE + 1, numbers.size());
+        assertTrue(numbers.contains(allocator.format(7000L)));
+        assertTrue(numbers.contains(allocator.format(8000L)));
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    @DisplayName("Should produce IBANs with valid RIB key and mod-97 checksum")
+    void testIbanChecksum() {
+        for (long sequence : new long[]{0L, 1L, 42L, 123_456_789L, 99_999_999_999L}) {
+            // When
+            String iban = allocator.format(sequence);
+
+            // Then
+            assertEquals(AccountNumberAllocator.IBAN_LENGTH, iban.length());
+            assertTrue(iban.startsWith("FR"));
+            assertEquals("1234500010", iban.substring(4, 14));
+
+            String rib = iban.substring(4);
+            BigInteger ribValue = new BigInteger(rib.substring(0, 5)).multiply(BigInteger.valueOf(89))
+                    .add(new BigInteger(rib.substring(5, 10)).multiply(BigInteger.valueOf(15)))
+                    .add(new BigInteger(rib.substring(10, 21)).multiply(BigInteger.valueOf(3)))
+                    .add(new BigInteger(rib.substring(21)));
+            assertEquals(0, ribValue.mod(BigInteger.valueOf(97)).intValue(), iban);
+
+            String rearranged = iban.substring(4) + "1527" + iban.substring(2, 4);
+            assertEquals(1, new BigInteger(rearranged).mod(BigInteger.valueOf(97)).intValue(), iban);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject bank codes that are not 5 digits")
+    void testInvalidBankCode() {
+        assertThrows(IllegalArgumentException.class, () -> new AccountNumberAllocator(jdbcTemplate, "1234", "00010"));
+        assertThrows(IllegalArgumentException.class, () -> new AccountNumberAllocator(jdbcTemplate, "12345", "ABCDE"));
+    }
+}
@@ -4,14 +4,19 @@ import com.securebank.account.dto.AccountDTO;
 import com.securebank.account.dto.CreateAccountRequest;
 import com.securebank.account.exception.AccountNotFoundException;
 import com.securebank.account.model.Account;
+import com.securebank.account.model.Transaction;
 import com.securebank.account.repository.AccountRepository;
+import com.securebank.account.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -28,6 +33,21 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @Mock
+    private AccountCacheEvictor accountCacheEvictor;
+
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -53,7 +73,7 @@ class AccountServiceTest {
     @DisplayName("Should create account successfully")
     void testCreateAccount() {
         // Given
-        when(accountRepository.existsByAccountNumber(any())).thenReturn(false);
+        when(accountNumberAllocator.nextAccountNumber()).thenReturn("FR7612345000100000000100044");
         when(accountRepository.save(any(Account.class))).thenReturn(account);
 
         // When
@@ -69,8 +89,14 @@ class AccountServiceTest {
     @Test
     @DisplayName("Should get user accounts successfully")
     void testGetUserAccounts() {
-        // Given
-        Account account2 = Account.builder()
+        // Given - lignes projetées directement en DTO par le repository
+        AccountDTO account1 = AccountDTO.builder()
+                .id(1L)
+                .userId(100L)
+                .accountType(Account.AccountType.CHECKING)
+                .balance(new BigDecimal("1000.00"))
+                .build();
+        AccountDTO account2 = AccountDTO.builder()
                 .id(2L)
                 .userId(100L)
                 .accountNumber("FR7698765432109876543210987")
@@ -80,7 +106,10 @@ class AccountServiceTest {
                 .status(Account.AccountStatus.ACTIVE)
                 .build();
 
-        when(accountRepository.findByUserId(100L)).thenReturn(Arrays.asList(account, account2));
+        when(accountRepository.findAccountDTOsByUserId(100L)).thenReturn(Arrays.asList(account1, account2));
+        when(stripedBalanceService.isStriped(1L)).thenReturn(false);
+        when(stripedBalanceService.isStriped(2L)).thenReturn(true);
+        when(stripedBalanceService.pendingCredits(2L)).thenReturn(new BigDecimal("250.00"));
 
         // When
         List<AccountDTO> results = accountService.getUserAccounts(100L);
@@ -90,6 +119,9 @@ class AccountServiceTest {
         assertEquals(2, results.size());
         assertEquals(Account.AccountType.CHECKING, results.get(0).getAccountType());
         assertEquals(Account.AccountType.SAVINGS, results.get(1).getAccountType());
+        // Compte à sous-soldes : crédits en attente ajoutés au solde projeté
+        assertEquals(new BigDecimal("5250.00"), results.get(1).getBalance());
+        verify(accountRepository, never()).findByUserId(any());
     }
 
     @Test
@@ -107,6 +139,37 @@ class AccountServiceTest {
         assertEquals("FR7612345678901234567890123", result.getAccountNumber());
     }
 
+    @Test
+    @DisplayName("Should serve repeated balance reads from the account cache")
+    void testGetAccountBalanceCached() {
+        // Given
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        // When
+        accountService.getAccountById(1L, 100L);
+        BigDecimal balance = accountService.getAccountBalance(1L, 100L);
+
+        // Then - une seule lecture en base, le contrôle de propriété reste appliqué
+        assertEquals(new BigDecimal("1000.00"), balance);
+        verify(accountRepository, times(1)).findById(1L);
+        assertThrows(AccountNotFoundException.class, () -> accountService.getAccountBalance(1L, 999L));
+    }
+
+    @Test
+    @DisplayName("Should include pending stripe credits in the balance of a striped account")
+    void testGetAccountBalanceStriped() {
+        // Given
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(stripedBalanceService.isStriped(1L)).thenReturn(true);
+        when(stripedBalanceService.pendingCredits(1L)).thenReturn(new BigDecimal("250.00"));
+
+        // When
+        BigDecimal balance = accountService.getAccountBalance(1L, 100L);
+
+        // Then
+        assertEquals(new BigDecimal("1250.00"), balance);
+    }
+
     @Test
     @DisplayName("Should throw exception when account not found")
     void testGetAccountByIdNotFound() {
@@ -163,4 +226,34 @@ class AccountServiceTest {
         assertEquals(Account.AccountStatus.ACTIVE, result.getStatus());
         verify(accountRepository, times(1)).save(any(Account.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should deposit with a single atomic credit")
+    void testDeposit() {
+        // Given
+        when(accountRepository.credit(1L, new BigDecimal("250.00"))).thenReturn(1);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        // When
+        AccountDTO result = accountService.deposit(1L, new BigDecimal("250.00"), "Dépôt");
+
+        // Then - pas de lecture-modification-écriture sur l'entité
+        assertNotNull(result);
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(accountCacheEvictor).evictAfterCommit(List.of(1L), List.of(100L));
+    }
+
+    @Test
+    @DisplayName("Should throw exception when depositing on unknown account")
+    void testDepositAccountNotFound() {
+        // Given
+        when(accountRepository.credit(999L, new BigDecimal("250.00"))).thenReturn(0);
+
+        // When & Then
+        assertThrows(AccountNotFoundException.class, () -> {
+            accountService.deposit(999L, new BigDecimal("250.00"), "Dépôt");
+        });
+        verify(transactionRepository, never()).save(any());
+    }
+}
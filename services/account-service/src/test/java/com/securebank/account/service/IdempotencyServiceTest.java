@@ -0,0 +1,217 @@
+package com.securebank.account.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.dto.TransferRequest;
+import com.securebank.account.exception.IdempotencyKeyReuseException;
+import com.securebank.account.exception.InsufficientBalanceException;
+import com.securebank.account.exception.InvalidIdempotencyKeyException;
+import com.securebank.account.model.IdempotencyRecord;
+import com.securebank.account.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyService idempotencyService;
+
+    // Table idempotency_keys simulée : (scope|clé) → ligne validée
+    private final Map<String, IdempotencyRecord> table = new ConcurrentHashMap<>();
+
+    private final TransferRequest request = TransferRequest.builder()
+            .fromAccountId(1L)
+            .toAccountNumber("FR7698765432109876543210987")
+            .amount(new BigDecimal("100.00"))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, transactionTemplate, objectMapper,
+                meterRegistry, Duration.ofHours(24), 1000);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            if (table.putIfAbsent(record.getScope() + "|" + record.getIdempotencyKey(), record) != null) {
+                throw new DataIntegrityViolationException("uk_idempotency_scope_key");
+            }
+            return record;
+        });
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey(anyString(), anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get(invocation.getArgument(0) + "|" + invocation.getArgument(1))));
+    }
+
+    @Test
+    @DisplayName("Should execute once and replay the stored DTO for the same key")
+    void testReplay() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+
+        // When
+        TransactionDTO first = idempotencyService.execute("transfer:100", "key-1", request, TransactionDTO.class,
+                () -> transfer(executions.incrementAndGet()));
+        TransactionDTO replay = idempotencyService.execute("transfer:100", "key-1", request, TransactionDTO.class,
+                () -> transfer(executions.incrementAndGet()));
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(first, replay);
+        assertEquals(1.0, meterRegistry.get(IdempotencyService.METRIC).tag("result", "replayed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should skip the database lookup for a key never seen by the filter")
+    void testNewKeySkipsLookup() {
+        idempotencyService.execute("transfer:100", "key-2", request, TransactionDTO.class, () -> transfer(1));
+
+        verify(idempotencyRecordRepository, never()).findByScopeAndIdempotencyKey(anyString(), anyString());
+        assertEquals(1.0, meterRegistry.get(IdempotencyService.METRIC).tag("result", "new").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should make concurrent duplicates wait for the in-flight attempt")
+    void testConcurrentDuplicates() throws Exception {
+        // Given - la première exécution reste bloquée tant que les doublons ne sont pas lancés
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        Future<TransactionDTO>[] results = new Future[4];
+        for (int i = 0; i < 4; i++) {
+            results[i] = executor.submit(() -> idempotencyService.execute("transfer:100", "key-3", request,
+                    TransactionDTO.class, () -> {
+                        int execution = executions.incrementAndGet();
+                        awaitQuietly(release);
+                        return transfer(execution);
+                    }));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        for (Future<TransactionDTO> result : results) {
+            assertEquals(1L, result.get(5, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should replay the other instance's response when the unique constraint rejects the insert")
+    void testCrossInstanceDuplicate() {
+        // Given - ligne validée par une autre instance, inconnue du filtre de celle-ci
+        table.put("transfer:100|key-4", IdempotencyRecord.builder()
+                .scope("transfer:100")
+                .idempotencyKey("key-4")
+                .requestHash(hashOf(request))
+                .response("{\"id\":42}")
+                .build());
+
+        AtomicInteger executions = new AtomicInteger();
+
+        // When
+        TransactionDTO result = idempotencyService.execute("transfer:100", "key-4", request, TransactionDTO.class,
+                () -> transfer(executions.incrementAndGet()));
+
+        // Then - l'insertion de la clé échoue avant l'opération : la réponse enregistrée fait foi
+        assertEquals(42L, result.getId());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should replay the stored response after a restart instead of re-running the operation")
+    void testReplayAfterRestart() {
+        // Given - virement validé, puis redémarrage : nouvelle instance, filtre de Bloom vide
+        TransactionDTO first = idempotencyService.execute("transfer:100", "key-6", request, TransactionDTO.class,
+                () -> transfer(1));
+        IdempotencyService restarted = new IdempotencyService(idempotencyRecordRepository, transactionTemplate,
+                new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(),
+                Duration.ofHours(24), 1000);
+
+        // When - rejouée, l'opération échouerait désormais (solde déjà débité)
+        TransactionDTO replay = restarted.execute("transfer:100", "key-6", request, TransactionDTO.class, () -> {
+            throw new InsufficientBalanceException("Insufficient balance");
+        });
+
+        // Then
+        assertEquals(first, replay);
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused with a different request or an invalid key")
+    void testKeyReuse() {
+        idempotencyService.execute("transfer:100", "key-5", request, TransactionDTO.class, () -> transfer(1));
+        TransferRequest other = TransferRequest.builder()
+                .fromAccountId(1L)
+                .toAccountNumber("FR7698765432109876543210987")
+                .amount(new BigDecimal("999.00"))
+                .build();
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.execute(
+                "transfer:100", "key-5", other, TransactionDTO.class, () -> transfer(2)));
+        assertThrows(InvalidIdempotencyKeyException.class, () -> idempotencyService.execute(
+                "transfer:100", "x".repeat(101), request, TransactionDTO.class, () -> transfer(3)));
+    }
+
+    private String hashOf(TransferRequest transferRequest) {
+        // Même empreinte que le service : exécuter une fois sous une autre clé et relire la ligne
+        idempotencyService.execute("hash", "probe", transferRequest, TransactionDTO.class, () -> transfer(0));
+        return table.remove("hash|probe").getRequestHash();
+    }
+
+    private static TransactionDTO transfer(long id) {
+        return TransactionDTO.builder().id(id).amount(new BigDecimal("100.00")).build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.securebank.account.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LedgerReconciliationServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    // Tranches vérifiées : borne basse → borne haute
+    private final Map<Long, Long> checkedChunks = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(jdbcTemplate.queryForMap(anyString())).thenReturn(Map.of("min_id", 1L, "max_id", 1000L));
+
+        // Le compte 42 est en écart : solde 150.00, grand livre 100.00
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            long fromId = (Long) args[2];
+            long toId = (Long) args[3];
+            checkedChunks.put(fromId, toId);
+            if (fromId <= 42 && 42 <= toId) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getLong("id")).thenReturn(42L);
+                when(row.getBigDecimal("recorded")).thenReturn(new BigDecimal("150.00"));
+                when(row.getBigDecimal("ledger")).thenReturn(new BigDecimal("100.00"));
+                invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should check every chunk of the id space in parallel and record mismatches")
+    void testReconcile() {
+        // Given
+        LedgerReconciliationService service = new LedgerReconciliationService(
+                jdbcTemplate, transactionManager, meterRegistry, 4, 100, Duration.ofHours(1));
+
+        // When
+        LedgerReconciliationService.Report report = service.reconcile();
+
+        // Then - 1..1000 couvert sans trou ni recouvrement, en tranches de 100 ids au plus
+        assertTrue(report.complete());
+        assertEquals(report.chunks(), checkedChunks.size());
+        long next = 1;
+        for (Map.Entry<Long, Long> chunk : new TreeMap<>(checkedChunks).entrySet()) {
+            assertEquals(next, chunk.getKey());
+            assertTrue(chunk.getValue() - chunk.getKey() < 100);
+            next = chunk.getValue() + 1;
+        }
+        assertEquals(1001, next);
+
+        assertEquals(1, report.mismatches());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(Collection.class), eq(1), any());
+        assertEquals(1.0, meterRegistry.get(LedgerReconciliationService.MISMATCHES_METRIC).counter().count());
+        assertEquals(1.0, meterRegistry.get(LedgerReconciliationService.LAST_RUN_MISMATCHES_METRIC).gauge().value());
+        // Agrégats en lecture seule : routés vers la réplique quand elle est activée
+        verify(transactionManager, times((int) report.chunks()))
+                .getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    @DisplayName("Should skip the remaining chunks once the run window is exhausted")
+    void testDeadline() {
+        // Given - fenêtre déjà écoulée
+        LedgerReconciliationService service = new LedgerReconciliationService(
+                jdbcTemplate, transactionManager, meterRegistry, 2, 250, Duration.ZERO);
+
+        // When
+        LedgerReconciliationService.Report report = service.reconcile();
+
+        // Then
+        assertFalse(report.complete());
+        assertEquals(4, report.skippedChunks());
+        assertTrue(checkedChunks.isEmpty());
+        assertEquals(4.0, meterRegistry.get(LedgerReconciliationService.SKIPPED_CHUNKS_METRIC).counter().count());
+    }
+
+    @Test
+    @DisplayName("Should report an empty run when there is no account")
+    void testNoAccount() {
+        when(jdbcTemplate.queryForMap(anyString())).thenReturn(new HashMap<>(Map.of()));
+        LedgerReconciliationService service = new LedgerReconciliationService(
+                jdbcTemplate, transactionManager, meterRegistry, 2, 250, Duration.ofHours(1));
+
+        assertEquals(0, service.reconcile().chunks());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should skip the scheduled run while another instance holds the lease")
+    void testLeaseHeld() {
+        // Given
+        when(jdbcTemplate.update(startsWith("INSERT INTO job_leases"), any(Object[].class))).thenReturn(0);
+        LedgerReconciliationService service = new LedgerReconciliationService(
+                jdbcTemplate, transactionManager, meterRegistry, 2, 250, Duration.ofHours(1));
+
+        // When
+        service.scheduledReconciliation();
+
+        // Then
+        verify(jdbcTemplate, never()).queryForMap(anyString());
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM job_leases"), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should release the lease once the scheduled run is over")
+    void testLeaseReleased() {
+        // Given
+        when(jdbcTemplate.update(startsWith("INSERT INTO job_leases"), any(Object[].class))).thenReturn(1);
+        LedgerReconciliationService service = new LedgerReconciliationService(
+                jdbcTemplate, transactionManager, meterRegistry, 2, 250, Duration.ofHours(1));
+
+        // When
+        service.scheduledReconciliation();
+
+        // Then - bail de la fenêtre du run plus la marge, rendu par son seul détenteur
+        verify(jdbcTemplate).update(startsWith("INSERT INTO job_leases"),
+                eq("ledger-reconciliation"), anyString(), eq(Duration.ofHours(1).plusMinutes(15).toSeconds()));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM job_leases"), eq("ledger-reconciliation"), anyString());
+        assertEquals(4, checkedChunks.size());
+    }
+}
@@ -0,0 +1,108 @@
+package com.securebank.account.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.securebank.account.dto.TransactionEvent;
+import com.securebank.account.model.OutboxEvent;
+import com.securebank.account.repository.OutboxEventRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducerService, transactionTemplate, objectMapper);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 500);
+        ReflectionTestUtils.setField(outboxRelay, "ackTimeoutMs", 1000L);
+    }
+
+    @Test
+    @DisplayName("Should delete only the outbox rows acknowledged by Kafka")
+    void testRelayBatchDeletesAcknowledgedRows() throws Exception {
+        // Given
+        when(outboxEventRepository.lockNextBatch(500)).thenReturn(List.of(outboxEvent(1L), outboxEvent(2L)));
+        when(kafkaProducerService.publishTransactionEvent(argThat(e -> e != null && e.getTransactionId() == 1L)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        when(kafkaProducerService.publishTransactionEvent(argThat(e -> e != null && e.getTransactionId() == 2L)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // When
+        int acknowledged = outboxRelay.relayBatch();
+
+        // Then - la ligne 2 reste dans l'outbox pour le prochain passage
+        assertEquals(1, acknowledged);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Should not publish anything when the outbox is empty")
+    void testRelayBatchWithEmptyOutbox() {
+        // Given
+        when(outboxEventRepository.lockNextBatch(500)).thenReturn(List.of());
+
+        // When
+        int acknowledged = outboxRelay.relayBatch();
+
+        // Then
+        assertEquals(0, acknowledged);
+        verify(kafkaProducerService, never()).publishTransactionEvent(any());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private OutboxEvent outboxEvent(Long transactionId) throws Exception {
+        TransactionEvent event = TransactionEvent.builder()
+                .transactionId(transactionId)
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .userId(100L)
+                .amount(new BigDecimal("100.00"))
+                .currency("EUR")
+                .type("TRANSFER_OUT")
+                .status("COMPLETED")
+                .timestamp(LocalDateTime.now())
+                .build();
+        return OutboxEvent.builder()
+                .id(transactionId)
+                .eventKey(transactionId.toString())
+                .payload(objectMapper.writeValueAsString(event))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
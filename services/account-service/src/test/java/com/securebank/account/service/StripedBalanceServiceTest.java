@@ -0,0 +1,105 @@
+package com.securebank.account.service;
+
+import com.securebank.account.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripedBalanceServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private StripedBalanceService stripedBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        stripedBalanceService = new StripedBalanceService(jdbcTemplate, accountRepository, transactionTemplate,
+                Set.of(42L), 8);
+    }
+
+    @Test
+    @DisplayName("Should only stripe designated accounts")
+    void testIsStriped() {
+        assertTrue(stripedBalanceService.isStriped(42L));
+        assertFalse(stripedBalanceService.isStriped(1L));
+    }
+
+    @Test
+    @DisplayName("Should credit one stripe, or the account row when stripes do not exist yet")
+    void testCredit() {
+        // Given - la première stripe tirée existe, la seconde non ; la ligne accounts est inactive
+        when(jdbcTemplate.update(startsWith("UPDATE account_balance_stripes"), any(), eq(42L), anyInt()))
+                .thenReturn(1, 0);
+        when(accountRepository.credit(42L, new BigDecimal("20.00"))).thenReturn(0);
+
+        // When
+        int stripeCredited = stripedBalanceService.credit(42L, new BigDecimal("10.00"));
+        int rowCredited = stripedBalanceService.credit(42L, new BigDecimal("20.00"));
+
+        // Then
+        assertEquals(1, stripeCredited);
+        assertEquals(0, rowCredited);
+        verify(accountRepository, never()).credit(42L, new BigDecimal("10.00"));
+        verify(accountRepository).credit(42L, new BigDecimal("20.00"));
+    }
+
+    @Test
+    @DisplayName("Should move pending stripe credits into the account row before retrying the debit")
+    void testConsolidateAndDebit() {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("SELECT id FROM accounts"), eq(Long.class), eq(42L))).thenReturn(42L);
+        when(jdbcTemplate.queryForObject(contains("FOR UPDATE"), eq(BigDecimal.class), eq(42L)))
+                .thenReturn(new BigDecimal("300.00"));
+        when(accountRepository.debitIfSufficient(42L, new BigDecimal("250.00"))).thenReturn(1);
+
+        // When
+        int debited = stripedBalanceService.consolidateAndDebit(42L, new BigDecimal("250.00"));
+
+        // Then
+        assertEquals(1, debited);
+        InOrder order = inOrder(jdbcTemplate, accountRepository);
+        // Ligne accounts verrouillée avant les stripes, comme dans un lot ou un groupe
+        order.verify(jdbcTemplate).queryForObject(startsWith("SELECT id FROM accounts"), eq(Long.class), eq(42L));
+        order.verify(jdbcTemplate).queryForObject(contains("account_balance_stripes"), eq(BigDecimal.class), eq(42L));
+        order.verify(jdbcTemplate).update(startsWith("UPDATE account_balance_stripes SET balance = 0"), eq(42L));
+        order.verify(jdbcTemplate).update(startsWith("UPDATE accounts"), eq(new BigDecimal("300.00")), eq(42L));
+        order.verify(accountRepository).debitIfSufficient(42L, new BigDecimal("250.00"));
+    }
+
+    @Test
+    @DisplayName("Should skip consolidation when stripes are empty")
+    void testConsolidateEmpty() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(42L))).thenReturn(42L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(BigDecimal.class), eq(42L))).thenReturn(BigDecimal.ZERO);
+
+        stripedBalanceService.consolidate(42L);
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,141 @@
+package com.securebank.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conversion de la table transactions en partitions mensuelles sur une vraie base PostgreSQL
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TransactionPartitionManager.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TransactionPartitionManagerTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> false);
+        registry.add("transactions.partitioning.enabled", () -> true);
+        registry.add("transactions.partitioning.months-ahead", () -> 3);
+        registry.add("transactions.partitioning.retention-months", () -> 0);
+    }
+
+    @Autowired
+    private TransactionPartitionManager partitionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Order(1)
+    @DisplayName("Should convert the table in place, create future partitions and prune date-range queries")
+    void testConvertAndPrune() {
+        // Given - des lignes historiques dans la table non partitionnée
+        insertTransaction(1L, LocalDateTime.of(2024, 3, 15, 10, 0));
+        insertTransaction(2L, LocalDateTime.now());
+
+        // When - deux passages : le second doit être sans effet
+        partitionManager.maintainPartitions();
+        partitionManager.maintainPartitions();
+
+        // Then - la partition historique couvre aussi le mois prochain (marge de la borne de préparation)
+        assertTrue(partitionManager.isPartitioned());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+
+        YearMonth firstMonth = YearMonth.now().plusMonths(2);
+        String firstPartition = partitionName(firstMonth);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'transactions'::regclass", String.class);
+        assertTrue(partitions.containsAll(List.of(
+                TransactionPartitionManager.LEGACY_PARTITION, TransactionPartitionManager.DEFAULT_PARTITION, firstPartition)));
+        assertEquals(4, partitions.size());
+
+        // Préparation en ligne : la borne temporaire a disparu, l'index construit en ligne porte la clé primaire
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_constraint WHERE conname = ?",
+                Integer.class, TransactionPartitionManager.LEGACY_BOUND_CHECK));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_inherits WHERE inhrelid = to_regclass(?)",
+                Integer.class, TransactionPartitionManager.LEGACY_KEY_INDEX));
+
+        // Une nouvelle ligne du premier mois partitionné est routée dans sa partition
+        insertTransaction(3L, firstMonth.atDay(2).atStartOfDay());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + firstPartition, Integer.class));
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM transactions WHERE to_account_id = 2 AND created_at BETWEEN '"
+                        + firstMonth.atDay(1).atStartOfDay() + "' AND '" + firstMonth.atEndOfMonth().atTime(23, 59) + "'",
+                String.class));
+        assertTrue(plan.contains(firstPartition), plan);
+        assertFalse(plan.contains(TransactionPartitionManager.LEGACY_PARTITION), plan);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Should move rows out of the DEFAULT partition when their month gets a partition")
+    void testMoveDefaultRows() {
+        // Given - une ligne au-delà des partitions existantes atterrit dans DEFAULT
+        partitionManager.maintainPartitions();
+        YearMonth lateMonth = YearMonth.now().plusMonths(6);
+        insertTransaction(10L, lateMonth.atDay(3).atStartOfDay());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TransactionPartitionManager.DEFAULT_PARTITION, Integer.class));
+
+        // When - la création anticipée rattrape ce mois
+        ReflectionTestUtils.setField(partitionManager, "monthsAhead", 6);
+        try {
+            partitionManager.maintainPartitions();
+        } finally {
+            ReflectionTestUtils.setField(partitionManager, "monthsAhead", 3);
+        }
+
+        // Then - la ligne est dans sa partition, DEFAULT est vide et de nouveau rattachée
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partitionName(lateMonth), Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TransactionPartitionManager.DEFAULT_PARTITION, Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_inherits WHERE inhrelid = to_regclass(?) AND inhparent = 'transactions'::regclass",
+                Integer.class, TransactionPartitionManager.DEFAULT_PARTITION));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "transactions_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+
+    private void insertTransaction(Long id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO transactions (id, from_account_id, to_account_id, amount, currency, type, status, created_at) "
+                + "VALUES (?, 1, 2, 10.00, 'EUR', 'TRANSFER_OUT', 'COMPLETED', ?)", id, createdAt);
+    }
+}
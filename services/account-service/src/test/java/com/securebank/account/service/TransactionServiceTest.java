@@ -1,32 +1,65 @@
 package com.securebank.account.service;
 
 import static com.securebank.account.model.Account.AccountStatus.ACTIVE;
+import com.securebank.account.dto.BatchTransferRequest;
+import com.securebank.account.dto.BatchTransferResult;
+import com.securebank.account.dto.CursorPage;
+import com.securebank.account.dto.TransactionCursor;
 import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.dto.TransactionExportFormat;
 import com.securebank.account.dto.TransferRequest;
 import com.securebank.account.exception.AccountNotFoundException;
 import com.securebank.account.exception.InsufficientBalanceException;
+import com.securebank.account.exception.InvalidCursorException;
 import com.securebank.account.exception.InvalidTransferException;
+import com.securebank.account.exception.TransferLimitExceededException;
+import com.securebank.account.limits.TransferLimitService;
+import com.securebank.account.metrics.StatementCounter;
+import com.securebank.account.metrics.TransferPhaseTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.securebank.account.model.Account;
 import com.securebank.account.model.Transaction;
 import com.securebank.account.repository.AccountRepository;
 import com.securebank.account.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,9 +72,37 @@ class TransactionServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
-    // Supposons que ce service est mocké pour ne pas vraiment envoyer à Kafka pendant le test unitaire
+    // Les événements passent par l'outbox, mockée pour ne rien écrire pendant le test unitaire
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
+
+    @Mock
+    private StatementCounter statementCounter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private AccountCacheEvictor accountCacheEvictor;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    // Group commit désactivé : pas de TransferGroupCommitter disponible
+    @Mock
+    private ObjectProvider<TransferGroupCommitter> transferGroupCommitter;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private TransferLimitService transferLimitService;
+
+    @Spy
+    private TransferPhaseTimer transferPhaseTimer = new TransferPhaseTimer(new SimpleMeterRegistry());
 
     @InjectMocks
     private TransactionService transactionService;
@@ -74,6 +135,10 @@ class TransactionServiceTest {
         
         BigDecimal amount = new BigDecimal("100.00");
 
+        // La transaction du virement unitaire exécute directement le callback
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         // Requête de transfert standard
         transferRequest = TransferRequest.builder()
         	    .fromAccountId(1L)
@@ -87,19 +152,20 @@ class TransactionServiceTest {
     @DisplayName("Should successfully transfer money between accounts")
     void testSuccessfulTransfer() {
         // Given
-        // Simuler la récupération des comptes par ID avec un verrou (findByIdWithLock)
-        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByIdWithLock(2L)).thenReturn(Optional.of(toAccount));
-
-        // Simuler l'enregistrement de la transaction et lui attribuer un ID
-        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
-            Transaction t = invocation.getArgument(0);
-            t.setId(1L);
-            return t;
+        // Simuler la résolution du destinataire puis le chargement des 2 comptes
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+
+        // Simuler le débit conditionnel et le crédit atomiques (1 ligne modifiée)
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(accountRepository.credit(2L, new BigDecimal("100.00"))).thenReturn(1);
+
+        // Simuler l'enregistrement des 2 transactions et leur attribuer un ID
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            transactions.forEach(t -> t.setId(1L));
+            return transactions;
         });
-        
-        // Simuler l'enregistrement des comptes (retourne l'objet Account modifié)
-        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         TransactionDTO result = transactionService.transfer(100L, transferRequest);
@@ -109,21 +175,86 @@ class TransactionServiceTest {
         assertEquals(Transaction.TransactionStatus.COMPLETED, result.getStatus());
         assertEquals(new BigDecimal("100.00"), result.getAmount());
         
-        // Vérifier l'état des comptes après la mise à jour par le service
-        assertEquals(0, new BigDecimal("900.00").compareTo(fromAccount.getBalance()), "Source account balance should be 900.00");
-        assertEquals(0, new BigDecimal("600.00").compareTo(toAccount.getBalance()), "Destination account balance should be 600.00");
+        // Vérifier que les soldes sont modifiés en base par UPDATE atomiques, dans l'ordre des ids
+        InOrder ledger = inOrder(accountRepository);
+        ledger.verify(accountRepository).debitIfSufficient(1L, new BigDecimal("100.00"));
+        ledger.verify(accountRepository).credit(2L, new BigDecimal("100.00"));
         
         // Vérifier que les interactions avec les mocks se sont produites
-        verify(accountRepository, times(2)).save(any(Account.class));
-        verify(transactionRepository, times(2)).save(any(Transaction.class));
-        verify(kafkaProducerService, times(1)).publishTransactionEvent(any());
+        verify(accountRepository, never()).findByAccountNumber(any());
+        verify(accountRepository, never()).save(any(Account.class));
+        // Les 2 lignes sont écrites en une fois, directement à l'état COMPLETED
+        ArgumentCaptor<List<Transaction>> written = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).saveAll(written.capture());
+        verify(transactionRepository, never()).save(any());
+        assertEquals(2, written.getValue().size());
+        assertTrue(written.getValue().stream()
+                .allMatch(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED && t.getCompletedAt() != null));
+        verify(statementCounter).record(eq(TransactionService.TRANSFER_STATEMENTS_METRIC), anyInt());
+        verify(outboxService, times(2)).enqueueTransactionEvent(any());
+        InOrder writes = inOrder(transactionRepository, outboxService);
+        writes.verify(transactionRepository).saveAll(anyList());
+        writes.verify(outboxService, times(2)).enqueueTransactionEvent(any());
+        writes.verify(transactionRepository).flush();
+        verify(accountCacheEvictor).evictAfterCommit(List.of(1L, 2L), Set.of(100L, 200L));
+    }
+
+    @Test
+    @DisplayName("Should reject a transfer over the account limits before touching balances")
+    void testTransferLimitExceeded() {
+        // Given
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        doThrow(new TransferLimitExceededException("Daily transfer limit of 20000 EUR exceeded"))
+                .when(transferLimitService).reserve(fromAccount, new BigDecimal("100.00"), 1);
+
+        // When & Then
+        assertThrows(TransferLimitExceededException.class, () -> transactionService.transfer(100L, transferRequest));
+        verify(accountRepository, never()).debitIfSufficient(anyLong(), any());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject a transfer when the destination is deactivated after the status check")
+    void testTransferDestinationDeactivated() {
+        // Given - destinataire actif à la lecture, bloqué avant le crédit (0 ligne créditée)
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(accountRepository.credit(2L, new BigDecimal("100.00"))).thenReturn(0);
+
+        // When & Then
+        InvalidTransferException exception = assertThrows(InvalidTransferException.class,
+                () -> transactionService.transfer(100L, transferRequest));
+        assertEquals("Destination account is not active", exception.getMessage());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should apply ledger updates in ascending id order whatever the transfer direction")
+    void testTransferUpdatesAccountsInIdOrder() {
+        // Given - virement inverse : du compte 2 vers le compte 1
+        TransferRequest reverseRequest = new TransferRequest(2L, "FR7612345678901234567890123", new BigDecimal("100.00"), "Reverse");
+        when(accountRepository.findIdByAccountNumber("FR7612345678901234567890123")).thenReturn(Optional.of(1L));
+        when(accountRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(fromAccount, toAccount));
+        when(accountRepository.credit(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(accountRepository.debitIfSufficient(2L, new BigDecimal("100.00"))).thenReturn(1);
+
+        // When
+        transactionService.transfer(200L, reverseRequest);
+
+        // Then - la ligne 1 est toujours modifiée (donc verrouillée) avant la ligne 2
+        InOrder ledger = inOrder(accountRepository);
+        ledger.verify(accountRepository).credit(1L, new BigDecimal("100.00"));
+        ledger.verify(accountRepository).debitIfSufficient(2L, new BigDecimal("100.00"));
     }
 
     @Test
     @DisplayName("Should throw exception when source account not found")
     void testTransferWithAccountNotFound() {
-        // Given
-        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.empty());
+        // Given - seul le compte destinataire est trouvé
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(toAccount));
 
         // When & Then
         assertThrows(AccountNotFoundException.class, () -> {
@@ -131,7 +262,7 @@ class TransactionServiceTest {
         });
         
         // S'assurer qu'aucune sauvegarde n'a été tentée
-        verify(transactionRepository, never()).save(any());
+        verify(transactionRepository, never()).saveAll(any());
         verify(accountRepository, never()).save(any());
     }
 
@@ -140,8 +271,10 @@ class TransactionServiceTest {
     void testTransferWithInsufficientBalance() {
         // Given
         fromAccount.setBalance(new BigDecimal("50.00")); // Solde insuffisant (50.00 < 100.00)
-        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByIdWithLock(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        // Le débit conditionnel ne modifie aucune ligne
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(0);
 
         // When & Then
         assertThrows(InsufficientBalanceException.class, () -> {
@@ -149,7 +282,8 @@ class TransactionServiceTest {
         });
         
         // S'assurer qu'aucune sauvegarde n'a été tentée
-        verify(transactionRepository, never()).save(any());
+        verify(accountRepository, never()).credit(any(), any());
+        verify(transactionRepository, never()).saveAll(any());
         verify(accountRepository, never()).save(any());
     }
 
@@ -158,19 +292,21 @@ class TransactionServiceTest {
     void testTransferToSameAccount() {
         // Given
         TransferRequest sameAccountRequest = new TransferRequest(1L, "FR7612345678901234567890123", new BigDecimal("100.00"), "Invalid");
+        when(accountRepository.findIdByAccountNumber("FR7612345678901234567890123")).thenReturn(Optional.of(1L));
 
         // When & Then
         assertThrows(InvalidTransferException.class, () -> {
             transactionService.transfer(100L, sameAccountRequest);
         });
+        verify(accountRepository, never()).findAllById(any());
     }
 
     @Test
     @DisplayName("Should throw exception when user not authorized (does not own source account)")
     void testTransferUnauthorizedUser() {
         // Given
-        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByIdWithLock(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
 
         // When & Then - User 999 ne possède pas le compte (fromAccount.userId est 100L)
         assertThrows(InvalidTransferException.class, () -> {
@@ -183,15 +319,15 @@ class TransactionServiceTest {
     void testTransferWithSuspendedAccount() {
         // Given
         fromAccount.setStatus(Account.AccountStatus.SUSPENDED);
-        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByIdWithLock(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
 
         // When & Then
         assertThrows(InvalidTransferException.class, () -> {
             transactionService.transfer(100L, transferRequest);
         });
         
-        verify(transactionRepository, never()).save(any());
+        verify(transactionRepository, never()).saveAll(any());
     }
     
     // Test précédemment commenté, ajouté pour la complétude du service
@@ -215,4 +351,242 @@ class TransactionServiceTest {
         });
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Should seek after the cursor and return the next cursor when more rows exist")
+    void testAccountTransactionsAfterCursor() {
+        // Given - 3 lignes retournées pour une page de 2 : il existe une page suivante
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 10, 12, 0, 0, 123456000);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+        when(transactionRepository.findAccountTransactionsBefore(1L, createdAt, 50L, 3)).thenReturn(List.of(
+                transaction(49L, createdAt.minusMinutes(1)),
+                transaction(48L, createdAt.minusMinutes(2)),
+                transaction(47L, createdAt.minusMinutes(3))));
+
+        // When
+        CursorPage<TransactionDTO> page = transactionService.getAccountTransactionsAfter(
+                1L, 100L, "2025-01-10T12:00:00.123456,50", 2);
+
+        // Then
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertEquals(createdAt.minusMinutes(2) + ",48", page.getNextCursor());
+        verify(transactionRepository, never()).findAccountTransactionsPage(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return the first page without cursor and no next cursor on the last page")
+    void testAccountTransactionsFirstAndLastPage() {
+        // Given
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+        when(transactionRepository.findAccountTransactionsBefore(1L, TransactionCursor.FIRST.createdAt(), Long.MAX_VALUE, 21))
+                .thenReturn(List.of(transaction(1L, LocalDateTime.now())));
+
+        // When
+        CursorPage<TransactionDTO> page = transactionService.getAccountTransactionsAfter(1L, 100L, null, 20);
+
+        // Then
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void testAccountTransactionsInvalidCursor() {
+        // Given
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+
+        // When & Then
+        assertThrows(InvalidCursorException.class, () -> {
+            transactionService.getAccountTransactionsAfter(1L, 100L, "not-a-cursor", 20);
+        });
+    }
+
+    @Test
+    @DisplayName("Should stream the export as CSV and detach each exported row")
+    void testExportAccountTransactionsAsCsv() throws Exception {
+        // Given
+        Transaction first = transaction(1L, LocalDateTime.of(2025, 1, 1, 10, 0));
+        Transaction second = transaction(2L, LocalDateTime.of(2025, 1, 2, 10, 0));
+        second.setDescription("Loyer, janvier");
+        when(transactionRepository.streamAccountTransactions(
+                1L, LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 2, 1, 0, 0)))
+                .thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        long exported;
+        try (TransactionExportWriter writer = new TransactionExportWriter(output, TransactionExportFormat.CSV, null)) {
+            exported = transactionService.exportAccountTransactions(
+                    1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), writer);
+        }
+
+        // Then
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, exported);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("id,createdAt,type"));
+        assertTrue(lines.get(1).startsWith("1,2025-01-01T10:00,TRANSFER_OUT,COMPLETED,10.00,"));
+        assertTrue(lines.get(2).contains(",\"Loyer, janvier\","));
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    @DisplayName("Should credit a stripe of a striped destination and consolidate stripes of a striped source before failing")
+    void testStripedTransfer() {
+        // Given - destination à sous-soldes ; source à sous-soldes dont accounts.balance seul ne suffit pas
+        when(accountRepository.findIdByAccountNumber("FR7698765432109876543210987")).thenReturn(Optional.of(2L));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        when(stripedBalanceService.isStriped(1L)).thenReturn(true);
+        when(stripedBalanceService.isStriped(2L)).thenReturn(true);
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(0);
+        when(stripedBalanceService.consolidateAndDebit(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(stripedBalanceService.credit(2L, new BigDecimal("100.00"))).thenReturn(1);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        transactionService.transfer(100L, transferRequest);
+
+        // Then
+        verify(stripedBalanceService).consolidateAndDebit(1L, new BigDecimal("100.00"));
+        verify(stripedBalanceService).credit(2L, new BigDecimal("100.00"));
+        verify(accountRepository, never()).credit(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should lock source and destinations once in id order, debit the batch total once and report per-item results")
+    void testTransferBatch() {
+        // Given - 2 virements valides vers le même compte, un destinataire inconnu, un montant hors limite
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .fromAccountId(1L)
+                .transfers(List.of(
+                        batchItem("FR7698765432109876543210987", "100.00"),
+                        batchItem("FR7600000000000000000000000", "50.00"),
+                        batchItem("FR7698765432109876543210987", "20000.00"),
+                        batchItem("FR7698765432109876543210987", "200.00")))
+                .build();
+        when(accountRepository.findIdsByAccountNumberIn(anyList())).thenReturn(List.of(2L));
+        when(accountRepository.findAllByIdInWithLock(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        doThrow(new TransferLimitExceededException("Transfer amount exceeds maximum limit of 10000 EUR"))
+                .when(transferLimitService).reserve(fromAccount, new BigDecimal("20000.00"), 0);
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("300.00"))).thenReturn(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), eq(TransactionService.BATCH_CHUNK_SIZE), any()))
+                .thenReturn(new int[][] {{1}});
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            long id = 10;
+            for (Transaction transaction : transactions) {
+                transaction.setId(id++);
+            }
+            return transactions;
+        });
+
+        // When
+        BatchTransferResult result = transactionService.transferBatch(100L, request);
+
+        // Then
+        assertEquals(2, result.getCompleted());
+        assertEquals(2, result.getRejected());
+        assertEquals(new BigDecimal("300.00"), result.getTotalAmount());
+        List<BatchTransferResult.ItemResult> items = result.getResults();
+        assertEquals(BatchTransferResult.ItemStatus.COMPLETED, items.get(0).getStatus());
+        assertEquals(10L, items.get(0).getTransactionId());
+        assertEquals("Compte destinataire introuvable", items.get(1).getError());
+        assertEquals(BatchTransferResult.ItemStatus.REJECTED, items.get(2).getStatus());
+        assertEquals("Transfer amount exceeds maximum limit of 10000 EUR", items.get(2).getError());
+        assertEquals(12L, items.get(3).getTransactionId());
+
+        verify(accountRepository, times(1)).findAllByIdInWithLock(List.of(1L, 2L));
+        verify(accountRepository, times(1)).debitIfSufficient(1L, new BigDecimal("300.00"));
+        // Le lot compte pour un seul virement dans la limite par minute, au redémarrage aussi (un referenceId)
+        verify(transferLimitService).reserve(fromAccount, BigDecimal.ZERO, 1);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(TransactionService.BATCH_CHUNK_SIZE), any());
+        // Le batch de crédits (un paquet) s'ajoute aux instructions comptées par Hibernate
+        verify(statementCounter).count(1);
+        verify(statementCounter).record(eq(TransactionService.BATCH_TRANSFER_STATEMENTS_METRIC), anyInt());
+        ArgumentCaptor<List<Transaction>> written = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).saveAll(written.capture());
+        assertEquals(1, written.getValue().stream().map(Transaction::getReferenceId).distinct().count());
+        verify(outboxService, times(4)).enqueueTransactionEvent(any());
+        verify(accountCacheEvictor).evictAfterCommit(Set.of(1L, 2L), Set.of(100L, 200L));
+    }
+
+    @Test
+    @DisplayName("Should reject the whole batch when the total exceeds the balance")
+    void testTransferBatchInsufficientBalance() {
+        // Given
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .fromAccountId(1L)
+                .transfers(List.of(batchItem("FR7698765432109876543210987", "800.00"),
+                        batchItem("FR7698765432109876543210987", "800.00")))
+                .build();
+        when(accountRepository.findIdsByAccountNumberIn(anyList())).thenReturn(List.of(2L));
+        when(accountRepository.findAllByIdInWithLock(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("1600.00"))).thenReturn(0);
+
+        // When & Then
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.transferBatch(100L, request));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should apply a transfer group in one debit and reject only the transfers the balance no longer covers")
+    void testTransferGroup() {
+        // Given - solde de 1000 : 600 passe, le 2e 600 ne passe plus, 300 passe ; un virement d'un autre titulaire
+        List<TransferGroupCommitter.Submission> submissions = List.of(
+                submission(100L, "600.00"),
+                submission(100L, "600.00"),
+                submission(999L, "10.00"),
+                submission(100L, "300.00"));
+        when(accountRepository.findIdsByAccountNumberIn(anyList())).thenReturn(List.of(2L));
+        when(accountRepository.findAllByIdInWithLock(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("900.00"))).thenReturn(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), eq(TransactionService.BATCH_CHUNK_SIZE), any()))
+                .thenReturn(new int[][] {{1}});
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        List<TransferGroupCommitter.Outcome> outcomes = transactionService.transferGroup(1L, submissions);
+
+        // Then
+        assertEquals(new BigDecimal("600.00"), outcomes.get(0).transaction().getAmount());
+        assertInstanceOf(InsufficientBalanceException.class, outcomes.get(1).error());
+        assertInstanceOf(InvalidTransferException.class, outcomes.get(2).error());
+        assertEquals(new BigDecimal("300.00"), outcomes.get(3).transaction().getAmount());
+        verify(accountRepository, times(1)).debitIfSufficient(1L, new BigDecimal("900.00"));
+        verify(transactionRepository, times(1)).flush();
+    }
+
+    private TransferGroupCommitter.Submission submission(Long userId, String amount) {
+        TransferRequest request = TransferRequest.builder()
+                .fromAccountId(1L)
+                .toAccountNumber("FR7698765432109876543210987")
+                .amount(new BigDecimal(amount))
+                .description("Reversement")
+                .build();
+        return new TransferGroupCommitter.Submission(userId, request, System.nanoTime(), new CompletableFuture<>());
+    }
+
+    private BatchTransferRequest.Item batchItem(String toAccountNumber, String amount) {
+        return BatchTransferRequest.Item.builder()
+                .toAccountNumber(toAccountNumber)
+                .amount(new BigDecimal(amount))
+                .description("Salaire")
+                .build();
+    }
+
+    private Transaction transaction(Long id, LocalDateTime createdAt) {
+        return Transaction.builder()
+                .id(id)
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .amount(new BigDecimal("10.00"))
+                .type(Transaction.TransactionType.TRANSFER_OUT)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .createdAt(createdAt)
+                .build();
+    }
+
+}
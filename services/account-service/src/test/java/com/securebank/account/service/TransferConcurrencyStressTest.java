@@ -0,0 +1,334 @@
+package com.securebank.account.service;
+
+import com.securebank.account.config.HibernateConfig;
+import com.securebank.account.dto.BatchTransferRequest;
+import com.securebank.account.dto.BatchTransferResult;
+import com.securebank.account.dto.TransferRequest;
+import com.securebank.account.metrics.StatementCounter;
+import com.securebank.account.metrics.TransferPhaseTimer;
+import com.securebank.account.limits.TransferLimitService;
+import com.securebank.account.model.Account;
+import com.securebank.account.repository.AccountRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test de charge des virements concurrents sur une vraie base PostgreSQL.
+ *
+ * Des virements croisés (A→B et B→A) sont lancés sur un petit nombre de comptes par 64 threads
+ * (surchargeable avec -Dstress.threads / -Dstress.transfersPerThread), par le chemin unitaire seul puis
+ * en mêlant lots, group commit et virements unitaires, enfin contre la consolidation des sous-soldes d'un
+ * compte marchand. Le test journalise le débit et le nombre de deadlocks détectés, et vérifie que la
+ * masse monétaire totale est conservée.
+ */
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TransactionService.class, UserTransactionFeed.class, StatementCounter.class, HibernateConfig.class, SimpleMeterRegistry.class,
+        AccountCacheEvictor.class, ConcurrentMapCacheManager.class, StripedBalanceService.class, TransferPhaseTimer.class})
+class TransferConcurrencyStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 64);
+    private static final int TRANSFERS_PER_THREAD = Integer.getInteger("stress.transfersPerThread", 50);
+    private static final int HOT_ACCOUNTS = 4;
+    private static final long USER_ID = 100L;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    // Compte marchand à sous-soldes (accounts.striping.hot-accounts), id fixe hors de la séquence
+    private static final long STRIPED_ACCOUNT_ID = 900_000L;
+
+    // Code SQLState PostgreSQL "deadlock_detected"
+    private static final String DEADLOCK_SQL_STATE = "40P01";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+        registry.add("spring.jpa.show-sql", () -> false);
+        registry.add("accounts.striping.hot-accounts", () -> STRIPED_ACCOUNT_ID);
+        registry.add("accounts.striping.stripes", () -> 4);
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    // Plafonds hors sujet ici : la charge dépasse volontairement la vélocité autorisée
+    @MockBean
+    private TransferLimitService transferLimitService;
+
+    private final List<Account> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM account_balance_stripes");
+        accountRepository.deleteAll();
+        accounts.clear();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(Account.builder()
+                    .userId(USER_ID)
+                    .accountNumber(String.format("FR76STRESS%017d", i))
+                    .accountType(Account.AccountType.BUSINESS)
+                    .balance(INITIAL_BALANCE)
+                    .currency("EUR")
+                    .status(Account.AccountStatus.ACTIVE)
+                    .build()));
+        }
+        // Dernier de la liste, hors du tirage des virements croisés : id le plus grand, verrouillé en dernier
+        jdbcTemplate.update("INSERT INTO accounts (id, user_id, account_number, account_type, balance, currency, " +
+                "status, created_at, updated_at) VALUES (?, ?, 'FR76STRESSMERCHANT0000000', 'BUSINESS', ?, 'EUR', " +
+                "'ACTIVE', now(), now())", STRIPED_ACCOUNT_ID, USER_ID, INITIAL_BALANCE);
+        stripedBalanceService.createStripes();
+        accounts.add(accountRepository.findById(STRIPED_ACCOUNT_ID).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Crossed transfers under heavy concurrency should never deadlock nor lose money")
+    void testCrossedTransfersUnderContention() throws InterruptedException {
+        runCrossedTransfers("single", (from, to, other) -> {
+            transactionService.transfer(USER_ID, stressTransfer(from, to));
+            return 1;
+        });
+    }
+
+    @Test
+    @DisplayName("Batch and grouped transfers crossed with single transfers should never deadlock nor lose money")
+    void testBatchAndGroupedTransfersAgainstSingleTransfers() throws InterruptedException {
+        // Un tiers des appels par chemin : lot, group commit (transferGroup appelé comme par un worker) et unitaire.
+        // Les lots et groupes visent deux destinataires : leurs verrous couvrent trois comptes à la fois.
+        runCrossedTransfers("mixed", (from, to, other) -> switch (ThreadLocalRandom.current().nextInt(3)) {
+            case 0 -> {
+                BatchTransferResult result = transactionService.transferBatch(USER_ID, BatchTransferRequest.builder()
+                        .fromAccountId(accounts.get(from).getId())
+                        .transfers(List.of(stressItem(to), stressItem(other)))
+                        .build());
+                if (result.getRejected() > 0) {
+                    throw new IllegalStateException("Batch items rejected: " + result.getResults());
+                }
+                yield result.getCompleted();
+            }
+            case 1 -> {
+                List<TransferGroupCommitter.Outcome> outcomes = transactionService.transferGroup(
+                        accounts.get(from).getId(), List.of(stressSubmission(from, to), stressSubmission(from, other)));
+                for (TransferGroupCommitter.Outcome outcome : outcomes) {
+                    if (outcome.error() != null) {
+                        throw outcome.error();
+                    }
+                }
+                yield outcomes.size();
+            }
+            default -> {
+                transactionService.transfer(USER_ID, stressTransfer(from, to));
+                yield 1;
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Batches and groups touching a striped account should never deadlock against its consolidation")
+    void testBatchesAgainstStripeConsolidation() throws InterruptedException {
+        // Given - consolidation en boucle, comme la tâche planifiée mais sans pause
+        Account merchant = accounts.get(HOT_ACCOUNTS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger consolidationDeadlocks = new AtomicInteger();
+        Thread consolidation = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    stripedBalanceService.consolidateAll();
+                } catch (RuntimeException e) {
+                    if (isDeadlock(e)) {
+                        consolidationDeadlocks.incrementAndGet();
+                    }
+                }
+            }
+        }, "stripe-consolidation");
+        consolidation.start();
+
+        // When - lots crédités sur les stripes du compte marchand, groupes débités depuis lui
+        try {
+            runCrossedTransfers("striped", (from, to, other) -> {
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    BatchTransferResult result = transactionService.transferBatch(USER_ID, BatchTransferRequest.builder()
+                            .fromAccountId(accounts.get(from).getId())
+                            .transfers(List.of(stressItem(HOT_ACCOUNTS), stressItem(to)))
+                            .build());
+                    if (result.getRejected() > 0) {
+                        throw new IllegalStateException("Batch items rejected: " + result.getResults());
+                    }
+                    return result.getCompleted();
+                }
+                List<TransferGroupCommitter.Outcome> outcomes = transactionService.transferGroup(merchant.getId(),
+                        List.of(stressSubmission(HOT_ACCOUNTS, to), stressSubmission(HOT_ACCOUNTS, other)));
+                for (TransferGroupCommitter.Outcome outcome : outcomes) {
+                    if (outcome.error() != null) {
+                        throw outcome.error();
+                    }
+                }
+                return outcomes.size();
+            });
+        } finally {
+            running.set(false);
+            consolidation.join();
+        }
+
+        // Then
+        assertEquals(0, consolidationDeadlocks.get(), "Consolidation should lock the account row before its stripes");
+    }
+
+    /**
+     * Un appel de la charge : vire depuis {@code from} vers {@code to} (et {@code other} pour les lots),
+     * et retourne le nombre de virements appliqués
+     */
+    @FunctionalInterface
+    private interface CrossedTransfer {
+        int apply(int from, int to, int other);
+    }
+
+    private void runCrossedTransfers(String path, CrossedTransfer call) throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger deadlocks = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(HOT_ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+                        int other = to;
+                        while (other == to || other == from) {
+                            other = random.nextInt(HOT_ACCOUNTS);
+                        }
+                        try {
+                            calls.incrementAndGet();
+                            completed.addAndGet(call.apply(from, to, other));
+                        } catch (RuntimeException e) {
+                            if (isDeadlock(e)) {
+                                deadlocks.incrementAndGet();
+                            } else {
+                                log.warn("Stress transfer failed", e);
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(5, TimeUnit.MINUTES), "Stress run did not finish in time");
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        double throughput = completed.get() / (elapsedNanos / 1_000_000_000.0);
+        log.info("Transfer stress ({}): threads={}, calls={}, completed={}, deadlocks={}, failures={}, throughput={} transfers/s",
+                path, THREADS, calls.get(), completed.get(), deadlocks.get(), failures.get(),
+                String.format("%.1f", throughput));
+
+        // Solde d'un compte à sous-soldes : accounts.balance plus les crédits encore dans ses stripes
+        BigDecimal total = accountRepository.findAllById(accounts.stream().map(Account::getId).toList()).stream()
+                .map(Account::getBalance)
+                .reduce(stripedBalanceService.pendingCredits(STRIPED_ACCOUNT_ID), BigDecimal::add);
+
+        assertEquals(0, deadlocks.get(), "Ordered locking should never deadlock");
+        assertEquals(0, failures.get());
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, calls.get());
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(accounts.size())).compareTo(total),
+                "Total balance must be preserved");
+    }
+
+    private TransferRequest stressTransfer(int from, int to) {
+        return TransferRequest.builder()
+                .fromAccountId(accounts.get(from).getId())
+                .toAccountNumber(accounts.get(to).getAccountNumber())
+                .amount(new BigDecimal("1.00"))
+                .description("Stress")
+                .build();
+    }
+
+    private BatchTransferRequest.Item stressItem(int to) {
+        return BatchTransferRequest.Item.builder()
+                .toAccountNumber(accounts.get(to).getAccountNumber())
+                .amount(new BigDecimal("1.00"))
+                .description("Stress")
+                .build();
+    }
+
+    private TransferGroupCommitter.Submission stressSubmission(int from, int to) {
+        return new TransferGroupCommitter.Submission(USER_ID, stressTransfer(from, to), System.nanoTime(),
+                new CompletableFuture<>());
+    }
+
+    private static boolean isDeadlock(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && DEADLOCK_SQL_STATE.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
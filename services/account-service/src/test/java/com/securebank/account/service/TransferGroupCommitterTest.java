@@ -0,0 +1,147 @@
+package com.securebank.account.service;
+
+import com.securebank.account.datasource.ReadYourWritesTracker;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.dto.TransferRequest;
+import com.securebank.account.exception.InsufficientBalanceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferGroupCommitterTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private ObjectProvider<ReadYourWritesTracker> readYourWritesProvider;
+
+    @Mock
+    private ReadYourWritesTracker readYourWrites;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferGroupCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Attente longue : tous les virements soumis ensemble tombent dans le même groupe
+        committer = new TransferGroupCommitter(transactionService, readYourWritesProvider, meterRegistry, 50, 200, 1, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        committer.stop();
+    }
+
+    @Test
+    @DisplayName("Should apply queued transfers of the same source in one group and complete each caller")
+    void testGroupCommit() throws Exception {
+        // Given
+        List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        when(transactionService.transferGroup(eq(1L), anyList())).thenAnswer(invocation -> {
+            List<TransferGroupCommitter.Submission> submissions = invocation.getArgument(1);
+            groupSizes.add(submissions.size());
+            return submissions.stream()
+                    .map(s -> new TransferGroupCommitter.Outcome(
+                            TransactionDTO.builder().amount(s.request().getAmount()).build(), null))
+                    .toList();
+        });
+        committer.start();
+
+        // When
+        List<CompletableFuture<TransactionDTO>> results = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            results.add(committer.submit(100L, request(String.valueOf(i))));
+        }
+
+        // Then
+        for (int i = 0; i < 5; i++) {
+            assertEquals(new BigDecimal(String.valueOf(i + 1)), results.get(i).get(5, TimeUnit.SECONDS).getAmount());
+        }
+        assertEquals(List.of(5), groupSizes);
+        assertEquals(1, meterRegistry.get(TransferGroupCommitter.GROUP_SIZE_METRIC).summary().count());
+        assertEquals(5, meterRegistry.get(TransferGroupCommitter.QUEUE_WAIT_METRIC).timer().count());
+    }
+
+    @Test
+    @DisplayName("Should replay each transfer alone when the group transaction fails")
+    void testReplayOnGroupFailure() {
+        // Given - le groupe échoue ; rejoués seuls, le premier passe et le second est rejeté
+        TransferGroupCommitter.Submission ok = submission("10");
+        TransferGroupCommitter.Submission rejected = submission("20");
+        when(transactionService.transferGroup(1L, List.of(ok, rejected)))
+                .thenThrow(new IllegalStateException("deadlock"));
+        when(transactionService.transferGroup(1L, List.of(ok)))
+                .thenReturn(List.of(new TransferGroupCommitter.Outcome(TransactionDTO.builder().id(7L).build(), null)));
+        when(transactionService.transferGroup(1L, List.of(rejected)))
+                .thenReturn(List.of(new TransferGroupCommitter.Outcome(null, new InsufficientBalanceException("KO"))));
+
+        // When
+        committer.commit(List.of(ok, rejected));
+
+        // Then
+        assertEquals(7L, ok.result().join().getId());
+        CompletionException error = assertThrows(CompletionException.class, () -> rejected.result().join());
+        assertInstanceOf(InsufficientBalanceException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("Should record each committed transfer for read-your-writes before completing its caller")
+    void testReadYourWrites() {
+        // Given - réplique activée ; le commit a lieu sur le thread du group commit, sans utilisateur lié
+        when(readYourWritesProvider.getIfAvailable()).thenReturn(readYourWrites);
+        TransferGroupCommitter.Submission ok = submission("10");
+        TransferGroupCommitter.Submission rejected = new TransferGroupCommitter.Submission(
+                200L, request("20"), System.nanoTime(), new CompletableFuture<>());
+        when(transactionService.transferGroup(1L, List.of(ok, rejected))).thenReturn(List.of(
+                new TransferGroupCommitter.Outcome(TransactionDTO.builder().id(7L).build(), null),
+                new TransferGroupCommitter.Outcome(null, new InsufficientBalanceException("KO"))));
+        AtomicBoolean recordedBeforeCompletion = new AtomicBoolean();
+        doAnswer(invocation -> {
+            recordedBeforeCompletion.set(!ok.result().isDone());
+            return null;
+        }).when(readYourWrites).recordWrite(100L);
+
+        // When
+        committer.commit(List.of(ok, rejected));
+
+        // Then - seul le virement validé épingle son utilisateur sur le primaire
+        assertEquals(7L, ok.result().join().getId());
+        assertTrue(recordedBeforeCompletion.get());
+        verify(readYourWrites, never()).recordWrite(200L);
+    }
+
+    private TransferGroupCommitter.Submission submission(String amount) {
+        return new TransferGroupCommitter.Submission(100L, request(amount), System.nanoTime(), new CompletableFuture<>());
+    }
+
+    private TransferRequest request(String amount) {
+        return TransferRequest.builder()
+                .fromAccountId(1L)
+                .toAccountNumber("FR7698765432109876543210987")
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
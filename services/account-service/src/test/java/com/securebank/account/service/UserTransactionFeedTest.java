@@ -0,0 +1,126 @@
+package com.securebank.account.service;
+
+import com.securebank.account.dto.TransactionCursor;
+import com.securebank.account.dto.TransactionDTO;
+import com.securebank.account.model.Transaction;
+import com.securebank.account.repository.TransactionRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserTransactionFeedTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @InjectMocks
+    private UserTransactionFeed userTransactionFeed;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private final List<TransactionDTO> ledger = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Compte 1 : transactions aux minutes paires, compte 2 : minutes impaires
+        for (long i = 1; i <= 300; i++) {
+            long account = i % 2 == 0 ? 1L : 2L;
+            ledger.add(transaction(i, account, 99L, base.plusMinutes(i)));
+        }
+        // Virement interne 1 → 2, présent dans les 2 flux
+        ledger.add(transaction(1000L, 1L, 2L, base.plusMinutes(150).plusSeconds(30)));
+
+        // Simule la requête keyset multi-comptes sur le jeu de données en mémoire
+        when(transactionRepository.findUserTransactionDTOsBefore(anyCollection(), any(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> accountIds = invocation.getArgument(0);
+                    TransactionCursor cursor = new TransactionCursor(invocation.getArgument(1), invocation.getArgument(2));
+                    int limit = invocation.getArgument(3);
+                    return ledger.stream()
+                            .filter(t -> accountIds.contains(t.getFromAccountId()) || accountIds.contains(t.getToAccountId()))
+                            .filter(t -> isBefore(t, cursor))
+                            .sorted(newestFirst())
+                            .limit(limit)
+                            .toList();
+                });
+    }
+
+    @Test
+    @DisplayName("Should read all accounts newest first in one query and return only the requested window")
+    void testWindowReadsAllAccountsInOneQuery() {
+        // When
+        List<TransactionDTO> window = userTransactionFeed.window(List.of(1L, 2L), TransactionCursor.FIRST, 0, 10);
+
+        // Then
+        List<TransactionDTO> expected = ledger.stream().sorted(newestFirst()).limit(10).toList();
+        assertEquals(expected, window);
+        verify(transactionRepository, times(1)).findUserTransactionDTOsBefore(anyCollection(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should skip the offset and return an internal transfer only once")
+    void testWindowSkipsOffsetAndDeduplicatesInternalTransfers() {
+        // When - fenêtre profonde traversant le virement interne et plusieurs lots
+        List<TransactionDTO> window = userTransactionFeed.window(List.of(1L, 2L), TransactionCursor.FIRST, 140, 30);
+
+        // Then
+        List<TransactionDTO> expected = ledger.stream().sorted(newestFirst()).skip(140).limit(30).toList();
+        assertEquals(expected, window);
+        assertEquals(1, window.stream().filter(t -> t.getId() == 1000L).count());
+    }
+
+    @Test
+    @DisplayName("Should resume strictly after the cursor")
+    void testWindowAfterCursor() {
+        // Given
+        TransactionDTO last = ledger.get(199);
+
+        // When
+        List<TransactionDTO> window = userTransactionFeed.window(
+                List.of(1L, 2L), new TransactionCursor(last.getCreatedAt(), last.getId()), 0, 5);
+
+        // Then
+        assertEquals(List.of(199L, 198L, 197L, 196L, 195L), window.stream().map(TransactionDTO::getId).toList());
+    }
+
+    private static boolean isBefore(TransactionDTO t, TransactionCursor cursor) {
+        int byDate = t.getCreatedAt().compareTo(cursor.createdAt());
+        return byDate < 0 || (byDate == 0 && t.getId() < cursor.id());
+    }
+
+    private static Comparator<TransactionDTO> newestFirst() {
+        return Comparator.comparing(TransactionDTO::getCreatedAt).thenComparing(TransactionDTO::getId).reversed();
+    }
+
+    private static TransactionDTO transaction(Long id, Long fromAccountId, Long toAccountId, LocalDateTime createdAt) {
+        return TransactionDTO.builder()
+                .id(id)
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(BigDecimal.TEN)
+                .type(Transaction.TransactionType.TRANSFER_OUT)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .createdAt(createdAt)
+                .build();
+    }
+}
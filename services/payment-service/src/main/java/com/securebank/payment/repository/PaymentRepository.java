@@ -1,10 +1,12 @@
 package com.securebank.payment.repository;
 
+import com.securebank.payment.dto.PaymentDTO;
 import com.securebank.payment.model.Payment;
 import com.securebank.payment.model.Payment.PaymentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,6 +22,12 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByIdempotencyKey(String idempotencyKey);
     
     List<Payment> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    // Historique en lecture seule projeté directement en DTO : ni entité gérée, ni instantané de dirty-checking
+    @Query("SELECT new com.securebank.payment.dto.PaymentDTO(p.id, p.userId, p.accountId, p.stripePaymentId, " +
+           "p.amount, p.currency, p.status, p.paymentMethod, p.description, p.failureReason, p.createdAt, " +
+           "p.completedAt) FROM Payment p WHERE p.userId = :userId ORDER BY p.createdAt DESC")
+    List<PaymentDTO> findPaymentDTOsByUserId(Long userId);
     
     Page<Payment> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
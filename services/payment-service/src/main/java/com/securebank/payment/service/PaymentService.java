@@ -21,7 +21,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -191,9 +190,7 @@ public class PaymentService {
      * Récupérer l'historique des paiements
      */
     public List<PaymentDTO> getUserPayments(Long userId) {
-        return paymentRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return paymentRepository.findPaymentDTOsByUserId(userId);
     }
 
     /**